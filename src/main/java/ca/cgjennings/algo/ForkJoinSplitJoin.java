@@ -0,0 +1,378 @@
+package ca.cgjennings.algo;
+
+import ca.cgjennings.apps.arkham.StrangeEons;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * The primary multi-threaded implementation of {@link SplitJoin}. All
+ * instances share a single work-stealing {@link ForkJoinPool}.
+ *
+ * <p>
+ * Subproblems submitted from one of the pool's own threads (that is, from
+ * within another subproblem) are forked into the same pool, and the
+ * submitting thread helps to complete them while it waits. Nested use
+ * therefore neither creates additional threads nor blocks a worker.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class ForkJoinSplitJoin extends SplitJoin {
+
+    private ForkJoinSplitJoin() {
+    }
+
+    /**
+     * Returns the instance returned by {@link SplitJoin#getInstance()}.
+     *
+     * @return the shared instance
+     */
+    static ForkJoinSplitJoin getShared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Returns a new instance that shares its threads with all other instances.
+     *
+     * @return a new instance
+     */
+    static ForkJoinSplitJoin create() {
+        return new ForkJoinSplitJoin();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        // report exceptions directly; the pool would otherwise record them in
+        // a task that no one will ever join
+        Shared.POOL.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                UNCAUGHT_HANDLER.uncaughtException(Thread.currentThread(), t);
+            }
+        });
+    }
+
+    @Override
+    public void run(Runnable[] subproblems) throws ExecutionException {
+        if (subproblems == null) {
+            throw new NullPointerException("subproblems");
+        }
+        final Failure failure = new Failure();
+        final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[subproblems.length];
+        for (int i = 0; i < tasks.length; ++i) {
+            tasks[i] = new Leaf(subproblems[i], failure);
+        }
+        invoke(tasks, failure);
+    }
+
+    @Override
+    public void run(Collection<? extends Runnable> subproblems) throws ExecutionException {
+        if (subproblems == null) {
+            throw new NullPointerException("subproblems");
+        }
+        run(subproblems.toArray(new Runnable[subproblems.size()]));
+    }
+
+    @Override
+    public <V> List<V> evaluate(Collection<? extends Callable<V>> subproblems) throws ExecutionException {
+        if (subproblems == null) {
+            throw new NullPointerException("subproblems");
+        }
+        final Failure failure = new Failure();
+        final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[subproblems.size()];
+        int i = 0;
+        for (Callable<V> c : subproblems) {
+            tasks[i++] = new ValueLeaf<>(c, failure);
+        }
+        invoke(tasks, failure);
+
+        final ArrayList<V> results = new ArrayList<>(tasks.length);
+        for (ForkJoinTask<?> t : tasks) {
+            @SuppressWarnings("unchecked")
+            final V v = (V) t.getRawResult();
+            results.add(v);
+        }
+        return results;
+    }
+
+    @Override
+    public void runRange(int start, int end, float cost, RangeTask task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (start >= end) {
+            return;
+        }
+        // split finely enough that idle threads can steal work, but no finer
+        // than the minimum amount of work per subrange
+        final int count = end - start;
+        final int leaf = Math.max(minimumRange(cost), count / (getIdealSplitCount() * OVERSPLIT));
+        final Failure failure = new Failure();
+        try {
+            invoke(new ForkJoinTask<?>[]{new Range(task, start, end, leaf, failure)}, failure);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Runs tasks in the shared pool and waits for them to complete. If called
+     * from a pool thread, the calling thread takes part in the work.
+     */
+    private static void invoke(final ForkJoinTask<?>[] tasks, Failure failure) throws ExecutionException {
+        if (tasks.length == 0) {
+            return;
+        }
+        if (ForkJoinTask.getPool() == Shared.POOL) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            Shared.POOL.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        final Throwable t = failure.get();
+        if (t != null) {
+            throw new ExecutionException(t);
+        }
+    }
+
+    /**
+     * Records the first exception thrown by the subproblems of one problem.
+     * Subproblems catch their own exceptions so that the original exception
+     * can be reported rather than a copy made by the pool.
+     */
+    @SuppressWarnings("serial")
+    private static final class Failure extends AtomicReference<Throwable> {
+
+        void record(Throwable t) {
+            compareAndSet(null, t);
+        }
+    }
+
+    @Override
+    public int getIdealSplitCount() {
+        return Shared.POOL.getParallelism();
+    }
+
+    @Override
+    public void dispose() {
+        // the threads belong to the shared pool; there is nothing to release
+    }
+
+    /**
+     * Returns statistics for the shared pool.
+     *
+     * @return a snapshot of the current pool statistics
+     */
+    static PoolStatistics getStatistics() {
+        final ForkJoinPool pool = Shared.POOL;
+        final long now = System.nanoTime();
+        final long lifetime = endedLifetime.sum() + liveCount.get() * now - liveStartSum.sum();
+        final long busy = busyTime.sum();
+        return new PoolStatistics(
+                pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+                pool.getQueuedTaskCount(), pool.getQueuedSubmissionCount(), pool.getStealCount(),
+                completed.sum(), busy, Math.max(0L, lifetime - busy)
+        );
+    }
+
+    /**
+     * Holds the shared pool, which is created on first use.
+     */
+    private static final class Shared {
+
+        static final ForkJoinPool POOL = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(), Worker::new, UNCAUGHT_HANDLER, false
+        );
+        static final ForkJoinSplitJoin INSTANCE = new ForkJoinSplitJoin();
+    }
+
+    /**
+     * Each subrange is split until it is no larger than this many times the
+     * ideal split count, so that threads that finish early can steal work.
+     */
+    private static final int OVERSPLIT = 4;
+
+    // pool statistics
+    private static final LongAdder busyTime = new LongAdder();
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder endedLifetime = new LongAdder();
+    private static final LongAdder liveStartSum = new LongAdder();
+    private static final AtomicInteger liveCount = new AtomicInteger();
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * A pool thread. Tracks its lifetime and the time spent running
+     * subproblems so that idle time can be reported.
+     */
+    private static final class Worker extends ForkJoinWorkerThread {
+
+        private long started;
+        // nesting level of subproblems being run by this thread
+        private int depth;
+
+        Worker(ForkJoinPool pool) {
+            super(pool);
+            setName("SplitJoin worker thread #" + threadCounter.incrementAndGet());
+            if (getHighPriorityThreadHint()) {
+                setPriority(Thread.NORM_PRIORITY + (Thread.MAX_PRIORITY - Thread.NORM_PRIORITY) / 2);
+            }
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            started = System.nanoTime();
+            liveStartSum.add(started);
+            liveCount.incrementAndGet();
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            liveCount.decrementAndGet();
+            liveStartSum.add(-started);
+            endedLifetime.add(System.nanoTime() - started);
+            super.onTermination(exception);
+        }
+    }
+
+    /**
+     * Marks the start of a subproblem, returning the start time if the
+     * current thread is a pool thread that was otherwise idle, or -1.
+     */
+    private static long enter() {
+        final Thread t = Thread.currentThread();
+        if (t instanceof Worker && ((Worker) t).depth++ == 0) {
+            return System.nanoTime();
+        }
+        return -1L;
+    }
+
+    /**
+     * Marks the end of a subproblem, recording the exception that it threw,
+     * if any.
+     */
+    private static void exit(long start, Failure failure, Throwable thrown) {
+        if (thrown != null) {
+            failure.record(thrown);
+        }
+        final Thread t = Thread.currentThread();
+        if (t instanceof Worker) {
+            --((Worker) t).depth;
+            if (start >= 0L) {
+                busyTime.add(System.nanoTime() - start);
+            }
+        }
+        completed.increment();
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Leaf extends RecursiveAction {
+
+        private final Runnable r;
+        private final Failure failure;
+
+        Leaf(Runnable r, Failure failure) {
+            this.r = r;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            final long start = enter();
+            Throwable thrown = null;
+            try {
+                r.run();
+            } catch (Throwable t) {
+                thrown = t;
+            }
+            exit(start, failure, thrown);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ValueLeaf<V> extends RecursiveTask<V> {
+
+        private final Callable<V> c;
+        private final Failure failure;
+
+        ValueLeaf(Callable<V> c, Failure failure) {
+            this.c = c;
+            this.failure = failure;
+        }
+
+        @Override
+        protected V compute() {
+            final long start = enter();
+            Throwable thrown = null;
+            V value = null;
+            try {
+                value = c.call();
+            } catch (Throwable t) {
+                thrown = t;
+            }
+            exit(start, failure, thrown);
+            return value;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Range extends RecursiveAction {
+
+        private final RangeTask task;
+        private final int start, end, leaf;
+        private final Failure failure;
+
+        Range(RangeTask task, int start, int end, int leaf, Failure failure) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.leaf = leaf;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= leaf) {
+                final long t0 = enter();
+                Throwable thrown = null;
+                try {
+                    task.run(start, end);
+                } catch (Throwable t) {
+                    thrown = t;
+                }
+                exit(t0, failure, thrown);
+            } else if (failure.get() == null) {
+                final int mid = (start + end) >>> 1;
+                invokeAll(new Range(task, start, mid, leaf, failure), new Range(task, mid, end, leaf, failure));
+            }
+        }
+    }
+
+    private static final Thread.UncaughtExceptionHandler UNCAUGHT_HANDLER = (Thread t, Throwable e) -> {
+        StrangeEons.log.log(Level.SEVERE, "Uncaught exception in worker thread", e);
+    };
+}
@@ -39,6 +39,15 @@ import java.util.concurrent.ExecutionException;
  * <li>If necessary, combine the results of the subproblems.
  * </ol>
  *
+ * <p>
+ * The shared instance runs subproblems in a work-stealing thread pool, so
+ * subproblems that take longer than expected are less likely to leave other
+ * threads idle. Subproblems may themselves use a {@code SplitJoin}: nested
+ * subproblems are run by the same threads, and a thread that is waiting for
+ * nested subproblems to complete helps to complete them. Problems that consist
+ * of a range of similar elements can instead be passed to
+ * {@link #runRange}, which splits the range automatically.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  * @since 3.0
  */
@@ -60,18 +69,16 @@ public abstract class SplitJoin {
      * @return a suitable instance; it may be new or shared
      */
     public static SplitJoin getInstance() {
-        return instance.get();
-    }
-    private static final ThreadLocal<SplitJoin> instance = new ThreadLocal<SplitJoin>() {
-        @Override
-        protected SplitJoin initialValue() {
-            return createInstance();
+        if (cpus == 1 || !allowThreads) {
+            return new SerialSplitJoin();
         }
-    };
+        return ForkJoinSplitJoin.getShared();
+    }
 
     /**
      * Returns a new {@code SplitJoin} instance suited to the platform. This
-     * instance is guaranteed not to be shared.
+     * instance is guaranteed not to be shared, although it may share threads
+     * with other instances.
      *
      * @return a new instance suitable for parallelizing CPU bound tasks
      */
@@ -79,14 +86,16 @@ public abstract class SplitJoin {
         if (cpus == 1 || !allowThreads) {
             return new SerialSplitJoin();
         }
-        return new ThreadPoolSplitJoin();
+        return ForkJoinSplitJoin.create();
     }
 
     /**
      * Returns a new {@code SplitJoin} instance that will use the specified
      * number of threads. This instance is guaranteed not to be shared, and is
      * guaranteed to employ up to the specified number of threads (depending on
-     * the number of subproblems).
+     * the number of subproblems). Because its threads are not shared, it is
+     * suitable for subproblems that spend much of their time blocked, such as
+     * those that perform network I/O.
      *
      * @param nThreads the number of threads to be used
      * @return a new instance that uses the specified number of threads
@@ -201,6 +210,91 @@ public abstract class SplitJoin {
         }
     }
 
+    /**
+     * Processes a range of elements, in parallel if the amount of work
+     * justifies it. The range is split into contiguous subranges and the task
+     * is called once for each subrange. The number and size of the subranges
+     * is chosen automatically from the size of the range and the estimated
+     * cost of processing one element: ranges that are too cheap to benefit
+     * from parallel processing are processed in the calling thread.
+     *
+     * <p>
+     * The cost is measured relative to a simple operation on one element,
+     * such as copying one image pixel. For example, a task that processes the
+     * rows of an image could pass the image width as the cost.
+     *
+     * @param start the first element in the range
+     * @param end the element after the last element in the range
+     * @param cost the estimated cost of processing one element
+     * @param task the task that processes each subrange
+     * @throws NullPointerException if the task is {@code null}
+     * @throws RuntimeException if the task throws an exception
+     * @since 3.4
+     */
+    public void runRange(int start, int end, float cost, RangeTask task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (start >= end) {
+            return;
+        }
+        final int count = end - start;
+        final int n = Math.min(getIdealSplitCount(), (count + minimumRange(cost) - 1) / minimumRange(cost));
+        if (n <= 1) {
+            task.run(start, end);
+            return;
+        }
+        final int perTask = count / n;
+        final int remainder = count - n * perTask;
+        final Runnable[] units = new Runnable[n];
+        for (int i = 0, s = start; i < n; ++i) {
+            final int e = s + perTask + (i < remainder ? 1 : 0);
+            final int s0 = s;
+            units[i] = () -> task.run(s0, e);
+            s = e;
+        }
+        runUnchecked(units);
+    }
+
+    /**
+     * Returns the smallest number of elements that is worth processing as a
+     * separate subproblem.
+     *
+     * @param cost the estimated cost of processing one element
+     * @return the minimum subrange size
+     */
+    static int minimumRange(float cost) {
+        if (!(cost > 0f)) {
+            cost = 1f;
+        }
+        return (int) Math.max(1f, Math.min(Integer.MAX_VALUE, (float) MIN_SUBPROBLEM_COST / cost));
+    }
+
+    /**
+     * The estimated cost of the smallest subproblem that is worth running in
+     * another thread, in units of simple operations on one element.
+     */
+    private static final int MIN_SUBPROBLEM_COST = 16_384;
+
+    /**
+     * A task that processes a subrange of elements.
+     *
+     * @see #runRange
+     * @since 3.4
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+
+        /**
+         * Processes the elements from {@code start} up to but not including
+         * {@code end}.
+         *
+         * @param start the first element to process
+         * @param end the element after the last element to process
+         */
+        void run(int start, int end);
+    }
+
     /**
      * Runs a {@code task}. The task may be run in another thread, in which case
      * this method <i>will not wait</i> for the task to complete. The purpose of
@@ -242,14 +336,13 @@ public abstract class SplitJoin {
      * <i>may try</i> to creates threads with above average priority. Note that
      * even if enabled, this is not guaranteed to have an effect.
      *
+     * The hint affects threads created after it is set.
+     *
      * @param enable {@code true} to allow higher than normal priority threads
      */
     public static void setHighPriorityThreadHint(boolean enable) {
         synchronized (SplitJoin.class) {
-            if (allowHighPriThreads != enable) {
-                allowHighPriThreads = enable;
-                instance.remove();
-            }
+            allowHighPriThreads = enable;
         }
     }
 
@@ -270,12 +363,9 @@ public abstract class SplitJoin {
      * This may be useful during debugging or to work around any hardware- or
      * platform-specific issues that appear (such as CPU overheating). When set
      * to {@code false}, future calls to {@link #getInstance()} or
-     * {@link #createInstance()}
-     * <i>that create a new instance rather than share an existing one</i>
-     * will return a {@code SplitJoin} implementation that executes subproblems
-     * serially in the calling thread. To guarantee that all {@code SplitJoin}
-     * instances run serially, this must value must be set before the first call
-     * to {@link #getInstance()}.
+     * {@link #createInstance()} will return a {@code SplitJoin} implementation
+     * that executes subproblems serially in the calling thread. Instances that
+     * were obtained before the value was changed are not affected.
      *
      * @param enable allow parallel problem solving if {@code true}, disable if
      * {@code false} (default is {@code true})
@@ -284,6 +374,139 @@ public abstract class SplitJoin {
         allowThreads = enable;
     }
 
+    /**
+     * Returns a snapshot of statistics that describe the thread pool used by
+     * the shared {@code SplitJoin} instance. This can be used to tune how
+     * problems are split up or to diagnose performance issues.
+     *
+     * @return the current pool statistics
+     * @since 3.4
+     */
+    public static PoolStatistics getPoolStatistics() {
+        return ForkJoinSplitJoin.getStatistics();
+    }
+
+    /**
+     * An immutable snapshot of the state of the thread pool used by the shared
+     * {@code SplitJoin} instance. Counts and times are cumulative over the
+     * life of the application.
+     *
+     * @see #getPoolStatistics()
+     * @since 3.4
+     */
+    public static final class PoolStatistics {
+
+        private final int parallelism, threads, active;
+        private final long queued, submissions, steals, completed, busy, idle;
+
+        PoolStatistics(int parallelism, int threads, int active, long queued, long submissions, long steals, long completed, long busy, long idle) {
+            this.parallelism = parallelism;
+            this.threads = threads;
+            this.active = active;
+            this.queued = queued;
+            this.submissions = submissions;
+            this.steals = steals;
+            this.completed = completed;
+            this.busy = busy;
+            this.idle = idle;
+        }
+
+        /**
+         * Returns the target number of threads that run subproblems.
+         *
+         * @return the pool's parallelism level
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Returns the number of threads in the pool, including idle threads.
+         *
+         * @return the pool size
+         */
+        public int getThreadCount() {
+            return threads;
+        }
+
+        /**
+         * Returns an estimate of the number of threads that are currently
+         * running subproblems.
+         *
+         * @return the number of active threads
+         */
+        public int getActiveThreadCount() {
+            return active;
+        }
+
+        /**
+         * Returns an estimate of the number of subproblems that are waiting in
+         * the queues of pool threads.
+         *
+         * @return the queue depth
+         */
+        public long getQueuedTaskCount() {
+            return queued;
+        }
+
+        /**
+         * Returns an estimate of the number of problems submitted from outside
+         * of the pool that have not started yet.
+         *
+         * @return the number of queued submissions
+         */
+        public long getQueuedSubmissionCount() {
+            return submissions;
+        }
+
+        /**
+         * Returns the number of subproblems that were stolen from one thread's
+         * queue by another thread.
+         *
+         * @return the total steal count
+         */
+        public long getStealCount() {
+            return steals;
+        }
+
+        /**
+         * Returns the number of subproblems that have been completed.
+         *
+         * @return the total number of completed subproblems
+         */
+        public long getCompletedCount() {
+            return completed;
+        }
+
+        /**
+         * Returns the total time that pool threads have spent running
+         * subproblems.
+         *
+         * @return the busy time, in nanoseconds
+         */
+        public long getBusyNanos() {
+            return busy;
+        }
+
+        /**
+         * Returns the total time that pool threads have existed without
+         * running a subproblem.
+         *
+         * @return the idle time, in nanoseconds
+         */
+        public long getIdleNanos() {
+            return idle;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStatistics{parallelism=" + parallelism + ", threads=" + threads
+                    + ", active=" + active + ", queued=" + queued + ", submissions=" + submissions
+                    + ", steals=" + steals + ", completed=" + completed
+                    + ", busyMs=" + busy / 1_000_000L + ", idleMs=" + idle / 1_000_000L + '}';
+        }
+    }
+
     private static volatile boolean allowThreads = true;
     private static boolean allowHighPriThreads = true;
 }
@@ -1,5 +1,6 @@
 package ca.cgjennings.algo.compression;
 
+import ca.cgjennings.algo.SplitJoin;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,6 +14,66 @@ import java.io.OutputStream;
  */
 public class BZip2Compressor extends AbstractCompressor {
 
+    private int threads;
+    private boolean parallelDecompression;
+
+    /**
+     * Sets the maximum number of threads that will be used to compress data,
+     * and to decompress data if
+     * {@linkplain #setParallelDecompression parallel decompression} is
+     * enabled. Each thread processes a different block of the data, so only
+     * data that span more than one block benefit. The compressed and
+     * decompressed data are the same regardless of the number of threads.
+     *
+     * @param threads the maximum number of threads; 1 to compress in the
+     * calling thread only; 0 to use one thread per CPU (the default)
+     * @throws IllegalArgumentException if the number of threads is negative
+     * @since 3.4
+     */
+    public void setThreadCount(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads < 0: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the maximum number of threads that will be used to compress
+     * data, and to decompress data if parallel decompression is enabled.
+     *
+     * @return the maximum number of threads, or 0 to use one per CPU
+     * @since 3.4
+     */
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Sets whether streams returned by {@link #filter(InputStream)} decode
+     * several blocks at once, using up to the
+     * {@linkplain #setThreadCount thread count} threads. Parallel
+     * decompression locates blocks by scanning the compressed data for their
+     * header, and needs a block decoder and output buffer (about 5.5&nbsp;MiB
+     * at the highest compression level) for each thread. The default is
+     * {@code false}, which decompresses in the calling thread only.
+     *
+     * @param parallel {@code true} to decompress with multiple threads
+     * @since 3.4
+     */
+    public void setParallelDecompression(boolean parallel) {
+        parallelDecompression = parallel;
+    }
+
+    /**
+     * Returns whether data are decompressed using multiple threads.
+     *
+     * @return {@code true} if parallel decompression is enabled
+     * @since 3.4
+     */
+    public boolean isParallelDecompression() {
+        return parallelDecompression;
+    }
+
     @Override
     public void compress(InputStream in, OutputStream out) throws IOException {
         OutputStream bzo = filter(out);
@@ -51,7 +112,7 @@ public class BZip2Compressor extends AbstractCompressor {
         out.write('Z');
         // BZ accepts levels between 1 and 9 rather than 0 and 9
         final int level = Math.max(1, getCompressionLevel());
-        return new BZip2OutputStream(out, level);
+        return new BZip2OutputStream(out, level, resolveThreadCount());
     }
 
     @Override
@@ -59,6 +120,16 @@ public class BZip2Compressor extends AbstractCompressor {
         if (in.read() != 'B' || in.read() != 'Z') {
             throw new IOException("BZip2 marker missing from stream");
         }
+        if (parallelDecompression) {
+            final int n = resolveThreadCount();
+            if (n > 1) {
+                return new ParallelBZip2InputStream(in, n);
+            }
+        }
         return new BZip2InputStream(in);
     }
+
+    private int resolveThreadCount() {
+        return threads == 0 ? SplitJoin.getInstance().getIdealSplitCount() : threads;
+    }
 }
@@ -151,6 +151,165 @@ class BZip2InputStream extends InputStream implements BZip2Constants {
         init();
     }
 
+    /**
+     * Constructs a decoder for single blocks. The decoder is not a usable
+     * stream; blocks are decoded one at a time by calling
+     * {@link #decodeBlock}.
+     *
+     * @param blockSize100k the block size declared in the stream header
+     */
+    BZip2InputStream(int blockSize100k) {
+        super();
+
+        this.blockSize100k = blockSize100k;
+        this.currentState = EOF;
+    }
+
+    /**
+     * Decodes one complete block from a buffer of compressed data. The inverse
+     * block sort is performed and the CRC of the block is verified, but the
+     * initial run length encoding is not undone: the caller must expand each
+     * run of four equal bytes by the count that follows it.
+     *
+     * <p>
+     * After this returns or throws, {@link #getBlockEnd()} and
+     * {@link #isTruncated()} describe how much of the buffer was consumed.
+     *
+     * @param src the compressed data, starting with the byte that contains the
+     * first bit of the block header magic
+     * @param length the number of valid bytes in {@code src}
+     * @param bitOffset the index of the first bit of the magic within the
+     * first byte, from 0 (the high bit) to 7
+     * @param dest receives the decoded block; must be large enough to hold a
+     * block of the declared block size
+     * @return the number of bytes stored in {@code dest}
+     * @throws IOException if the block is malformed, its CRC does not match,
+     * or the buffer ends before the block does
+     */
+    int decodeBlock(byte[] src, int length, int bitOffset, byte[] dest) throws IOException {
+        final ArraySource source = new ArraySource(src, length);
+        this.in = source;
+        this.bsBuff = 0;
+        this.bsLive = 0;
+        try {
+            if (bitOffset > 0) {
+                bsR(bitOffset);
+            }
+            initBlock();
+
+            final int[] tt = inverseSort();
+            final byte[] ll8 = this.data.ll8;
+            final int n = this.last + 1;
+            int tPos = tt[this.origPtr];
+            if (this.blockRandomised) {
+                int rNToGo = 0;
+                int rTPos = 0;
+                for (int i = 0; i < n; ++i) {
+                    if (rNToGo == 0) {
+                        rNToGo = BZip2Constants.rNums[rTPos] - 1;
+                        if (++rTPos == 512) {
+                            rTPos = 0;
+                        }
+                    } else {
+                        rNToGo--;
+                    }
+                    dest[i] = (byte) (ll8[tPos] ^ (rNToGo == 1 ? 1 : 0));
+                    tPos = tt[tPos];
+                }
+            } else {
+                for (int i = 0; i < n; ++i) {
+                    dest[i] = ll8[tPos];
+                    tPos = tt[tPos];
+                }
+            }
+
+            // the CRC covers the fully expanded data
+            final CRC crcShadow = this.crc;
+            for (int i = 0, run = 0, prev = -1; i < n; ++i) {
+                final int ch = dest[i] & 0xff;
+                if (run == 4) {
+                    crcShadow.updateCRC(prev, ch);
+                    run = 0;
+                } else {
+                    crcShadow.updateCRC(ch);
+                    if (ch == prev) {
+                        ++run;
+                    } else {
+                        run = 1;
+                        prev = ch;
+                    }
+                }
+            }
+            if (crcShadow.getFinalCRC() != this.storedBlockCRC) {
+                reportCRCError();
+            }
+            return n;
+        } finally {
+            this.blockEnd = source.pos * 8L - this.bsLive;
+            this.truncated = source.exhausted;
+            this.in = null;
+        }
+    }
+
+    /**
+     * Returns the CRC stored in the header of the last block that was decoded
+     * with {@link #decodeBlock}.
+     *
+     * @return the stored block CRC
+     */
+    int getBlockCRC() {
+        return this.storedBlockCRC;
+    }
+
+    /**
+     * Returns the offset, in bits from the start of the buffer, of the first
+     * bit after the last block that was decoded with {@link #decodeBlock}.
+     *
+     * @return the bit offset of the end of the block
+     */
+    long getBlockEnd() {
+        return this.blockEnd;
+    }
+
+    /**
+     * Returns {@code true} if the last call to {@link #decodeBlock} tried to
+     * read beyond the end of its buffer.
+     *
+     * @return {@code true} if the buffer did not contain the whole block
+     */
+    boolean isTruncated() {
+        return this.truncated;
+    }
+
+    private long blockEnd;
+    private boolean truncated;
+
+    /**
+     * The source of compressed data for {@link #decodeBlock}. Unlike
+     * {@code ByteArrayInputStream}, this is not synchronized.
+     */
+    private static final class ArraySource extends InputStream {
+
+        private final byte[] buff;
+        private final int length;
+        int pos;
+        boolean exhausted;
+
+        ArraySource(byte[] buff, int length) {
+            this.buff = buff;
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            if (pos < length) {
+                return buff[pos++] & 0xff;
+            }
+            exhausted = true;
+            return -1;
+        }
+    }
+
     @Override
     public int read() throws IOException {
         if (this.in != null) {
@@ -781,6 +940,26 @@ class BZip2InputStream extends InputStream implements BZip2Constants {
             return;
         }
 
+        final int[] tt = inverseSort();
+        this.su_tPos = tt[this.origPtr];
+        this.su_count = 0;
+        this.su_i2 = 0;
+        this.su_ch2 = 256;
+        /* not a char and not EOF */
+
+        if (this.blockRandomised) {
+            this.su_rNToGo = 0;
+            this.su_rTPos = 0;
+            setupRandPartA();
+        } else {
+            setupNoRandPartA();
+        }
+    }
+
+    /**
+     * Builds the vector that undoes the block sort of the current block.
+     */
+    private int[] inverseSort() throws IOException {
         final int[] cftab = this.data.cftab;
         final int[] tt = this.data.initTT(this.last + 1);
         final byte[] ll8 = this.data.ll8;
@@ -796,23 +975,10 @@ class BZip2InputStream extends InputStream implements BZip2Constants {
             tt[cftab[ll8[i] & 0xff]++] = i;
         }
 
-        if ((this.origPtr < 0) || (this.origPtr >= tt.length)) {
+        if ((this.origPtr < 0) || (this.origPtr > this.last)) {
             throw new IOException("stream corrupted");
         }
-
-        this.su_tPos = tt[this.origPtr];
-        this.su_count = 0;
-        this.su_i2 = 0;
-        this.su_ch2 = 256;
-        /* not a char and not EOF */
-
-        if (this.blockRandomised) {
-            this.su_rNToGo = 0;
-            this.su_rTPos = 0;
-            setupRandPartA();
-        } else {
-            setupNoRandPartA();
-        }
+        return tt;
     }
 
     private void setupRandPartA() throws IOException {
@@ -29,8 +29,15 @@
  */
 package ca.cgjennings.algo.compression;
 
+import ca.cgjennings.algo.SplitJoin;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * An output stream that compresses into the BZip2 format (without the file
@@ -128,7 +135,11 @@ import java.io.OutputStream;
  * </p>
  *
  * <p>
- * Instances of this class are not threadsafe.
+ * Instances of this class are not threadsafe. However, a stream can be created
+ * that compresses several blocks at once using the threads of a
+ * {@link SplitJoin}. Blocks are still written in order, and the output is
+ * identical to that of a single-threaded stream. Each block in progress
+ * requires its own copy of the block memory listed above.
  * </p>
  *
  */
@@ -560,6 +571,22 @@ class BZip2OutputStream extends OutputStream
 
     private OutputStream out;
 
+    /**
+     * The maximum number of blocks to compress at once; 1 if blocks are
+     * compressed in the calling thread.
+     */
+    private final int threads;
+
+    /**
+     * Blocks that have been handed off for compression, in stream order.
+     */
+    private ArrayDeque<PendingBlock> pending;
+
+    /**
+     * Block memory that can be reused after its block has been written.
+     */
+    private ArrayDeque<Data> spareData;
+
     /**
      * Chooses a blocksize based on the given length of the data to compress.
      *
@@ -617,6 +644,33 @@ class BZip2OutputStream extends OutputStream
      */
     public BZip2OutputStream(final OutputStream out, final int blockSize)
             throws IOException {
+        this(out, blockSize, 1);
+    }
+
+    /**
+     * Constructs a new <tt>BZip2OutputStream</tt> with specified blocksize
+     * that compresses up to <tt>threads</tt> blocks at once. The compressed
+     * output is identical regardless of the number of threads.
+     *
+     * <p>
+     * <b>Attention: </b>The caller is resonsible to write the two BZip2 magic
+     * bytes <tt>"BZ"</tt> to the specified stream prior to calling this
+     * constructor.
+     * </p>
+     *
+     * @param out the destination stream.
+     * @param blockSize the blockSize as 100k units.
+     * @param threads the maximum number of blocks to compress in parallel; if
+     * 1, blocks are compressed in the thread that writes to the stream
+     *
+     * @throws IOException if an I/O error occurs in the specified stream.
+     * @throws IllegalArgumentException if {@code (blockSize < 1) || (blockSize >
+     * 9)} or {@code threads < 1}.
+     * @throws NullPointerException if {@code out == null}.
+     * @since 3.4
+     */
+    public BZip2OutputStream(final OutputStream out, final int blockSize, final int threads)
+            throws IOException {
         super();
 
         if (blockSize < 1) {
@@ -628,11 +682,32 @@ class BZip2OutputStream extends OutputStream
                     + ") > 9");
         }
 
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads(" + threads
+                    + ") < 1");
+        }
+
         this.blockSize100k = blockSize;
+        this.threads = threads;
         this.out = out;
+        if (threads > 1) {
+            this.pending = new ArrayDeque<>(threads + 1);
+            this.spareData = new ArrayDeque<>(threads + 1);
+        }
         init();
     }
 
+    /**
+     * Constructs a stream that is only used to compress one block in a worker
+     * thread. The stream header is not written.
+     */
+    private BZip2OutputStream(final OutputStream out, final int blockSize, final Data data) {
+        this.blockSize100k = blockSize;
+        this.threads = 1;
+        this.out = out;
+        this.data = data;
+    }
+
     @Override
     public void write(final int b) throws IOException {
         if (this.out != null) {
@@ -704,10 +779,15 @@ class BZip2OutputStream extends OutputStream
                 }
                 this.currentChar = -1;
                 endBlock();
+                while (pending != null && !pending.isEmpty()) {
+                    writePendingBlock();
+                }
                 endCompression();
             } finally {
                 this.out = null;
                 this.data = null;
+                this.pending = null;
+                this.spareData = null;
             }
         }
     }
@@ -772,6 +852,17 @@ class BZip2OutputStream extends OutputStream
             return;
         }
 
+        if (this.threads > 1) {
+            submitBlock();
+        } else {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Sorts the current block and writes it to the bit stream.
+     */
+    private void writeBlock() throws IOException {
         /* sort the block and establish posn of original string */
         blockSort();
 
@@ -807,6 +898,100 @@ class BZip2OutputStream extends OutputStream
         moveToFrontCodeAndSend();
     }
 
+    /**
+     * Hands the current block off to be compressed by another thread, and
+     * switches to fresh block memory. Blocks that have finished are written
+     * out; if too many blocks are in progress, this waits for the oldest.
+     */
+    private void submitBlock() throws IOException {
+        final PendingBlock block = new PendingBlock(this.data, this.last, this.blockCRC);
+        final int blockSize = this.blockSize100k;
+        block.done = CompletableFuture.runAsync(() -> {
+            try {
+                block.compress(blockSize);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, SplitJoin.getInstance()::execute);
+        pending.add(block);
+
+        final Data spare = spareData.poll();
+        this.data = spare == null ? new Data(this.blockSize100k) : spare;
+
+        while (!pending.isEmpty() && (pending.size() > threads || pending.peek().done.isDone())) {
+            writePendingBlock();
+        }
+    }
+
+    /**
+     * Waits for the oldest pending block to be compressed, then appends its
+     * bits to the stream.
+     */
+    private void writePendingBlock() throws IOException {
+        final PendingBlock block = pending.remove();
+        try {
+            block.done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException(cause);
+        }
+
+        final byte[] bytes = block.bytes;
+        for (int i = 0; i < bytes.length; ++i) {
+            bsW(8, bytes[i] & 0xff);
+        }
+        if (block.tailBits > 0) {
+            bsW(block.tailBits, block.tail);
+        }
+        spareData.add(block.data);
+    }
+
+    /**
+     * A block that is compressed separately from the rest of the stream.
+     * Blocks are not byte aligned, so the result is kept as whole bytes
+     * followed by up to 7 left over bits.
+     */
+    private static final class PendingBlock {
+
+        final Data data;
+        final int last;
+        final int blockCRC;
+        CompletableFuture<Void> done;
+
+        byte[] bytes;
+        int tail;
+        int tailBits;
+
+        PendingBlock(Data data, int last, int blockCRC) {
+            this.data = data;
+            this.last = last;
+            this.blockCRC = blockCRC;
+        }
+
+        void compress(int blockSize100k) throws IOException {
+            final ByteArrayOutputStream buff = new ByteArrayOutputStream(last / 4 + 64);
+            final BZip2OutputStream block = new BZip2OutputStream(buff, blockSize100k, data);
+            block.last = last;
+            block.blockCRC = blockCRC;
+            block.writeBlock();
+
+            while (block.bsLive >= 8) {
+                buff.write(block.bsBuff >> 24);
+                block.bsBuff <<= 8;
+                block.bsLive -= 8;
+            }
+            bytes = buff.toByteArray();
+            tailBits = block.bsLive;
+            tail = tailBits == 0 ? 0 : block.bsBuff >>> (32 - tailBits);
+        }
+    }
+
     private void endCompression() throws IOException {
         /*
          * Now another magic 48-bit number, 0x177245385090, to indicate the end
@@ -186,6 +186,33 @@ class LZMA2OutputStream extends FinishableOutputStream {
     private void writeEndMarker() throws IOException {
         assert !finished;
 
+        encodeRemaining();
+
+        try {
+            out.write(0x00);
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        }
+
+        finished = true;
+    }
+
+    /**
+     * Encodes all remaining input and finishes the stream without writing an
+     * end marker or finishing the underlying stream. The output can then be
+     * followed by the chunks of another stream, provided that they begin with
+     * a dictionary reset. Used to encode the blocks of a
+     * {@link ParallelLZMA2OutputStream}.
+     */
+    void finishBlock() throws IOException {
+        if (!finished) {
+            encodeRemaining();
+            finished = true;
+        }
+    }
+
+    private void encodeRemaining() throws IOException {
         if (exception != null) {
             throw exception;
         }
@@ -197,14 +224,10 @@ class LZMA2OutputStream extends FinishableOutputStream {
                 lzma.encodeForLZMA2();
                 writeChunk();
             }
-
-            out.write(0x00);
         } catch (IOException e) {
             exception = e;
             throw e;
         }
-
-        finished = true;
     }
 
     @Override
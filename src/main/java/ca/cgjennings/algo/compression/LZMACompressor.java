@@ -1,5 +1,6 @@
 package ca.cgjennings.algo.compression;
 
+import ca.cgjennings.algo.SplitJoin;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -11,6 +12,9 @@ import java.io.OutputStream;
  */
 public class LZMACompressor extends AbstractCompressor {
 
+    private int threads = 1;
+    private int blockSize;
+
     /**
      * Creates a new LZMA compressor at a default compression level.
      */
@@ -27,9 +31,72 @@ public class LZMACompressor extends AbstractCompressor {
         super(compressionLevel);
     }
 
+    /**
+     * Sets the maximum number of threads that will be used to compress data.
+     * When more than one thread is used, the input is divided into blocks
+     * that are compressed independently of each other. This reduces the
+     * compression ratio, since data in one block cannot refer back to data in
+     * an earlier block. The compressed data can be decompressed normally,
+     * using any number of threads.
+     *
+     * @param threads the maximum number of threads; 1 to compress in the
+     * calling thread only (the default); 0 to use one thread per CPU
+     * @throws IllegalArgumentException if the number of threads is negative
+     * @see #setBlockSize
+     * @since 3.4
+     */
+    public void setThreadCount(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads < 0: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the maximum number of threads that will be used to compress
+     * data.
+     *
+     * @return the maximum number of threads, or 0 to use one per CPU
+     * @since 3.4
+     */
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Sets the size of the blocks that input is divided into when compressing
+     * with more than one thread. Larger blocks compress better, but give
+     * fewer opportunities to work in parallel and use more memory. The block
+     * size has no effect when compressing with a single thread.
+     *
+     * @param blockSize the number of bytes of input per block, or 0 to use
+     * three times the dictionary size of the compression level, but at least
+     * 1&nbsp;MiB (the default)
+     * @throws IllegalArgumentException if the block size is negative
+     * @see #setThreadCount
+     * @since 3.4
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 0) {
+            throw new IllegalArgumentException("blockSize < 0: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the size of the blocks that input is divided into when
+     * compressing with more than one thread.
+     *
+     * @return the block size, in bytes, or 0 for the default size
+     * @since 3.4
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
     @Override
     public void compress(InputStream in, OutputStream out) throws IOException {
-        LZMA2OutputStream def = (LZMA2OutputStream) filter(out);
+        FinishableOutputStream def = (FinishableOutputStream) filter(out);
         pumpStream(in, def, true);
         def.finish();
     }
@@ -41,7 +108,13 @@ public class LZMACompressor extends AbstractCompressor {
         out.write('Z');
         out.write('2');
         out.write(level);
-        return new LZMA2OutputStream(new FinishableWrapperOutputStream(out), new LZMA2Options(level));
+        final FinishableOutputStream fout = new FinishableWrapperOutputStream(out);
+        final LZMA2Options options = new LZMA2Options(level);
+        final int n = threads == 0 ? SplitJoin.getInstance().getIdealSplitCount() : threads;
+        if (n > 1) {
+            return new ParallelLZMA2OutputStream(fout, options, blockSize, n);
+        }
+        return new LZMA2OutputStream(fout, options);
     }
 
     @Override
@@ -0,0 +1,486 @@
+package ca.cgjennings.algo.compression;
+
+import ca.cgjennings.algo.SplitJoin;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An input stream that decompresses from the BZip2 format (without the file
+ * header chars), decoding several blocks at once.
+ *
+ * <p>
+ * BZip2 blocks are not byte aligned and their lengths are not recorded, but
+ * each begins with a 48-bit magic number. The compressed input is scanned bit
+ * by bit for this number, and the data between each pair of matches is handed
+ * to a separate thread to decode. The decoded blocks are returned in order.
+ * Since the magic number can also occur by chance inside compressed data, a
+ * match is only trusted once the block before it is found to end exactly where
+ * the match begins. A block that runs past a false match is decoded again,
+ * together with the data that follows it. Each block is also checked against
+ * its stored CRC by the thread that decodes it.
+ *
+ * <p>
+ * At most a fixed number of blocks are read ahead of the block being returned,
+ * so memory use is bounded by the thread count and the block size rather than
+ * the length of the stream. The decompressed data are identical to those
+ * returned by {@link BZip2InputStream}.
+ *
+ * <p>
+ * Instances of this class are not threadsafe.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class ParallelBZip2InputStream extends InputStream {
+
+    private static final long BLOCK_MAGIC = 0x3141_5926_5359L;
+    private static final long END_MAGIC = 0x1772_4538_5090L;
+    private static final long MAGIC_MASK = (1L << 48) - 1L;
+    private static final int READ_SIZE = 64 * 1_024;
+
+    private InputStream in;
+    private final int blockSize100k;
+    private final int readAhead;
+    /**
+     * No valid block can have a compressed size anywhere near this large; if
+     * this many bytes pass without a block ending, the stream is corrupt.
+     */
+    private final int maxBlockBytes;
+
+    // compressed input; bit positions are relative to buff[0]
+    private byte[] buff = new byte[4 * READ_SIZE];
+    private int buffLength;
+    private boolean inputEnded;
+    private long blockStart;
+    private long scanPos;
+    private long scanFloor;
+    private long shift;
+    private boolean scanDone;
+    private boolean endFound;
+
+    // blocks being decoded, in stream order
+    private final ArrayDeque<Block> pending = new ArrayDeque<>();
+    private final ConcurrentLinkedQueue<BZip2InputStream> decoders = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<byte[]> spareOutput = new ConcurrentLinkedQueue<>();
+
+    private int storedCombinedCRC;
+    private int computedCombinedCRC;
+    private boolean complete;
+
+    // the block being returned, and the state of the run length decoder
+    private byte[] out;
+    private int outLength;
+    private int outPos;
+    private int run;
+    private int prev;
+    private int repeat;
+
+    private final byte[] single = new byte[1];
+
+    /**
+     * Constructs a new stream which decompresses bytes read from the specified
+     * stream. As with {@link BZip2InputStream}, the caller must have already
+     * read the initial <tt>"BZ"</tt> magic from the stream.
+     *
+     * @param in the stream to decompress
+     * @param threads the maximum number of blocks to decode at once
+     * @throws IOException if the stream header is malformed or an I/O error
+     * occurs
+     * @throws NullPointerException if <tt>in == null</tt>
+     * @throws IllegalArgumentException if the number of threads is less than
+     * 1
+     */
+    public ParallelBZip2InputStream(InputStream in, int threads) throws IOException {
+        if (in == null) {
+            throw new NullPointerException("in");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads < 1: " + threads);
+        }
+        this.in = in;
+        this.readAhead = threads;
+
+        int magic2 = in.read();
+        if (magic2 != 'h') {
+            throw new IOException("Stream is not BZip2 formatted: expected 'h'"
+                    + " as first byte but got '" + (char) magic2
+                    + "'");
+        }
+        int blockSize = in.read();
+        if ((blockSize < '1') || (blockSize > '9')) {
+            throw new IOException("Stream is not BZip2 formatted: illegal "
+                    + "blocksize " + (char) blockSize);
+        }
+        blockSize100k = blockSize - '0';
+        maxBlockBytes = blockSize100k * BZip2Constants.BASE_BLOCK_SIZE * 3;
+
+        // the first block (or the end of the stream) must follow the header
+        if (findMagic() != 0L) {
+            throw new IOException("bad block header");
+        }
+        if ((shift & MAGIC_MASK) == END_MAGIC) {
+            readEnd();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] dest, final int offs, final int len) throws IOException {
+        if (offs < 0) {
+            throw new IndexOutOfBoundsException("offs(" + offs + ") < 0.");
+        }
+        if (len < 0) {
+            throw new IndexOutOfBoundsException("len(" + len + ") < 0.");
+        }
+        if (offs + len > dest.length) {
+            throw new IndexOutOfBoundsException("offs(" + offs + ") + len("
+                    + len + ") > dest.length("
+                    + dest.length + ").");
+        }
+        if (in == null) {
+            throw new IOException("stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int n = 0;
+        while (n < len) {
+            if (repeat > 0) {
+                final int k = Math.min(repeat, len - n);
+                Arrays.fill(dest, offs + n, offs + n + k, (byte) prev);
+                n += k;
+                repeat -= k;
+                continue;
+            }
+            if (outPos >= outLength) {
+                if (n > 0 || !nextBlock()) {
+                    break;
+                }
+            }
+            // undo the initial run length encoding: four equal bytes are
+            // followed by a count of additional copies
+            final byte[] src = out;
+            int pos = outPos;
+            while (n < len && pos < outLength) {
+                final int ch = src[pos++] & 0xff;
+                if (run == 4) {
+                    repeat = ch;
+                    run = 0;
+                    break;
+                }
+                dest[offs + n++] = (byte) ch;
+                if (ch == prev) {
+                    ++run;
+                } else {
+                    run = 1;
+                    prev = ch;
+                }
+            }
+            outPos = pos;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    /**
+     * Makes the next decoded block current.
+     *
+     * @return {@code false} if there are no more blocks
+     */
+    private boolean nextBlock() throws IOException {
+        if (out != null) {
+            spareOutput.add(out);
+            out = null;
+            outLength = 0;
+        }
+        submitBlocks();
+
+        Block block = pending.poll();
+        if (block == null) {
+            if (!complete) {
+                complete = true;
+                if (storedCombinedCRC != computedCombinedCRC) {
+                    throw new IOException("BZip2 CRC error");
+                }
+            }
+            return false;
+        }
+        await(block);
+
+        // a block that ran off the end of its data was cut short by a false
+        // match; join it to the data that follows and try again
+        while (block.truncated) {
+            if (pending.isEmpty() && endFound) {
+                // the end of stream magic was also a false match
+                scanDone = false;
+                endFound = false;
+            }
+            submitBlocks();
+            final Block next = pending.poll();
+            if (next == null) {
+                throw new IOException("unexpected end of stream");
+            }
+            await(next);
+            if (next.output != null) {
+                spareOutput.add(next.output);
+            }
+            block = block.join(next);
+            if (block.length > maxBlockBytes) {
+                throw new IOException("stream corrupted");
+            }
+            block.decode();
+        }
+
+        final Throwable failure = block.failure;
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IOException("stream corrupted", failure);
+        }
+        if (block.end != block.expectedEnd) {
+            throw new IOException("stream corrupted");
+        }
+
+        computedCombinedCRC = (computedCombinedCRC << 1) | (computedCombinedCRC >>> 31);
+        computedCombinedCRC ^= block.crc;
+
+        out = block.output;
+        outLength = block.outputLength;
+        outPos = 0;
+        run = 0;
+        prev = -1;
+        return true;
+    }
+
+    private static void await(Block block) throws IOException {
+        try {
+            block.done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            // decode() records its own exceptions
+            throw new AssertionError(ex);
+        }
+    }
+
+    /**
+     * Starts decoding blocks until the read ahead limit is reached or the
+     * end of the compressed data has been found.
+     */
+    private void submitBlocks() throws IOException {
+        while (!scanDone && pending.size() < readAhead) {
+            final long next = findMagic();
+            if (next < 0L) {
+                // no end of stream marker: the block will fail as truncated
+                submit(blockStart, (long) buffLength * 8L);
+                scanDone = true;
+                break;
+            }
+            submit(blockStart, next);
+            blockStart = next;
+            if ((shift & MAGIC_MASK) == END_MAGIC) {
+                readEnd();
+            }
+        }
+    }
+
+    /**
+     * Starts decoding the candidate block between two bit positions.
+     */
+    private void submit(long start, long end) {
+        final int first = (int) (start >>> 3);
+        final int last = (int) ((end + 7L) >>> 3);
+        final Block block = new Block(
+                Arrays.copyOfRange(buff, first, last), last - first,
+                (int) (start & 7L), end - (start & ~7L)
+        );
+        pending.add(block);
+        block.done = CompletableFuture.runAsync(block::decode, SplitJoin.getInstance()::execute);
+    }
+
+    /**
+     * Reads the combined CRC that follows the end of stream magic at
+     * {@link #blockStart}.
+     */
+    private void readEnd() throws IOException {
+        scanDone = true;
+        endFound = true;
+        while (buffLength < (int) ((blockStart + 48L + 32L + 7L) >>> 3)) {
+            if (!readInput()) {
+                throw new IOException("unexpected end of stream");
+            }
+        }
+        final long crcStart = blockStart + 48L;
+        int crc = 0;
+        for (long bit = crcStart; bit < crcStart + 32L; ++bit) {
+            crc = (crc << 1) | ((buff[(int) (bit >>> 3)] >>> (7 - (int) (bit & 7L))) & 1);
+        }
+        storedCombinedCRC = crc;
+    }
+
+    /**
+     * Scans for the next block or end of stream magic, reading more input as
+     * needed. Matches that begin before {@link #scanFloor} are ignored.
+     *
+     * @return the bit position of the start of the match, or -1 if the input
+     * ends first
+     */
+    private long findMagic() throws IOException {
+        long pos = scanPos;
+        long sh = shift;
+        for (;;) {
+            final int index = (int) (pos >>> 3);
+            if (index >= buffLength) {
+                final long base = blockStart & ~7L;
+                if (pos - base > maxBlockBytes * 8L) {
+                    throw new IOException("stream corrupted");
+                }
+                scanPos = pos;
+                if (!readInput()) {
+                    return -1L;
+                }
+                // the buffer may have been compacted
+                pos = scanPos;
+                continue;
+            }
+            final int b = buff[index];
+            for (int bit = (int) (pos & 7L); bit < 8; ++bit) {
+                sh = (sh << 1) | ((b >>> (7 - bit)) & 1);
+                ++pos;
+                final long m = sh & MAGIC_MASK;
+                if ((m == BLOCK_MAGIC || m == END_MAGIC) && pos - 48L >= scanFloor) {
+                    shift = sh;
+                    scanPos = pos;
+                    scanFloor = pos;
+                    return pos - 48L;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads more compressed input into the buffer, first discarding the bytes
+     * before the current block.
+     *
+     * @return {@code false} if the end of the input was reached
+     */
+    private boolean readInput() throws IOException {
+        if (inputEnded) {
+            return false;
+        }
+        final int discard = (int) (blockStart >>> 3);
+        if (discard > 0) {
+            System.arraycopy(buff, discard, buff, 0, buffLength - discard);
+            buffLength -= discard;
+            final long bits = discard * 8L;
+            blockStart -= bits;
+            scanPos -= bits;
+            scanFloor -= bits;
+        }
+        if (buff.length - buffLength < READ_SIZE) {
+            buff = Arrays.copyOf(buff, Math.max(buff.length * 2, buffLength + READ_SIZE));
+        }
+        final int read = in.read(buff, buffLength, buff.length - buffLength);
+        if (read < 0) {
+            inputEnded = true;
+            return false;
+        }
+        buffLength += read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        InputStream inShadow = this.in;
+        if (inShadow != null) {
+            try {
+                if (inShadow != System.in) {
+                    inShadow.close();
+                }
+            } finally {
+                this.in = null;
+                this.buff = null;
+                this.out = null;
+                this.pending.clear();
+                this.decoders.clear();
+                this.spareOutput.clear();
+            }
+        }
+    }
+
+    /**
+     * A candidate block and the result of decoding it.
+     */
+    private final class Block {
+
+        final byte[] data;
+        final int length;
+        final int bitOffset;
+        final long expectedEnd;
+        CompletableFuture<Void> done;
+
+        byte[] output;
+        int outputLength;
+        int crc;
+        long end;
+        boolean truncated;
+        Throwable failure;
+
+        Block(byte[] data, int length, int bitOffset, long expectedEnd) {
+            this.data = data;
+            this.length = length;
+            this.bitOffset = bitOffset;
+            this.expectedEnd = expectedEnd;
+        }
+
+        void decode() {
+            BZip2InputStream decoder = decoders.poll();
+            if (decoder == null) {
+                decoder = new BZip2InputStream(blockSize100k);
+            }
+            if (output == null) {
+                output = spareOutput.poll();
+                if (output == null) {
+                    output = new byte[blockSize100k * BZip2Constants.BASE_BLOCK_SIZE];
+                }
+            }
+            failure = null;
+            try {
+                outputLength = decoder.decodeBlock(data, length, bitOffset, output);
+                crc = decoder.getBlockCRC();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            end = decoder.getBlockEnd();
+            truncated = decoder.isTruncated();
+            decoders.add(decoder);
+        }
+
+        /**
+         * Returns a new block that spans this block and the following block.
+         */
+        Block join(Block next) {
+            final int overlap = (int) (expectedEnd >>> 3);
+            final byte[] joined = Arrays.copyOf(data, overlap + next.length);
+            System.arraycopy(next.data, 0, joined, overlap, next.length);
+            final Block block = new Block(joined, joined.length, bitOffset, (expectedEnd & ~7L) + next.expectedEnd);
+            block.output = output;
+            return block;
+        }
+    }
+}
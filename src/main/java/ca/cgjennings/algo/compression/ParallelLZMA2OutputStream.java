@@ -0,0 +1,292 @@
+package ca.cgjennings.algo.compression;
+
+import ca.cgjennings.algo.SplitJoin;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An output stream that compresses to LZMA2 using several threads. The input
+ * is divided into blocks of a fixed size, and each block is encoded
+ * independently by its own encoder, starting with a dictionary reset. The
+ * encoded blocks are written in order, followed by a single end marker, so the
+ * result is an ordinary LZMA2 stream that can be read by
+ * {@link LZMA2InputStream} using the dictionary size of the original options.
+ *
+ * <p>
+ * Since matches cannot refer to data in earlier blocks, the output is somewhat
+ * larger than that of {@link LZMA2OutputStream}; the difference shrinks as the
+ * block size grows. The dictionary size used to encode each block is limited
+ * to the block size, as a larger dictionary could never be filled. The
+ * number of blocks that are encoded at once is limited so that the encoders
+ * fit comfortably in the available memory.
+ *
+ * <p>
+ * Calling {@link #flush()} ends the current block early.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class ParallelLZMA2OutputStream extends FinishableOutputStream {
+
+    private FinishableOutputStream out;
+    private final LZMA2Options blockOptions;
+    private final int threads;
+
+    private byte[] block;
+    private int blockLength;
+    private final ArrayDeque<PendingBlock> pending = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> spareBlocks = new ArrayDeque<>();
+
+    private boolean finished;
+    private IOException exception;
+
+    /**
+     * Returns the block size that is used if none is specified: three times
+     * the dictionary size, but at least 1&nbsp;MiB.
+     *
+     * @param options the compression options
+     * @return the default block size, in bytes
+     */
+    static int getDefaultBlockSize(LZMA2Options options) {
+        return (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(1L << 20, 3L * options.getDictSize()));
+    }
+
+    /**
+     * Creates a new stream that compresses to the specified stream.
+     *
+     * @param out the stream to write compressed data to
+     * @param options the compression options; a preset dictionary is not
+     * supported
+     * @param blockSize the number of bytes of input in each independently
+     * encoded block, or 0 for the {@linkplain #getDefaultBlockSize default}
+     * @param threads the maximum number of blocks to encode at once
+     * @throws IllegalArgumentException if the block size is negative, the
+     * thread count is less than 1, or the options include a preset dictionary
+     */
+    ParallelLZMA2OutputStream(FinishableOutputStream out, LZMA2Options options, int blockSize, int threads) {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        if (blockSize < 0) {
+            throw new IllegalArgumentException("blockSize < 0: " + blockSize);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads < 1: " + threads);
+        }
+        final byte[] presetDict = options.getPresetDict();
+        if (presetDict != null && presetDict.length > 0) {
+            throw new IllegalArgumentException("preset dictionary not supported");
+        }
+        if (blockSize == 0) {
+            blockSize = getDefaultBlockSize(options);
+        }
+
+        this.out = out;
+        blockOptions = (LZMA2Options) options.clone();
+        if (blockOptions.getDictSize() > blockSize) {
+            blockOptions.setDictSize(Math.max(LZMA2Options.DICT_SIZE_MIN, blockSize));
+        }
+
+        // each thread needs an encoder, and each pending block needs its
+        // input and (at worst) an equal amount of output
+        final long perThreadKiB = blockOptions.getEncoderMemoryUsage() + 2L * (blockSize / 1_024 + 1);
+        final long budgetKiB = Runtime.getRuntime().maxMemory() / 2L / 1_024L;
+        this.threads = (int) Math.max(1L, Math.min(threads, budgetKiB / perThreadKiB));
+
+        block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        byte[] buf = new byte[1];
+        buf[0] = (byte) b;
+        write(buf, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len < 0 || off + len > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        if (finished) {
+            throw new IOException("Stream finished or closed");
+        }
+
+        try {
+            while (len > 0) {
+                final int n = Math.min(len, block.length - blockLength);
+                System.arraycopy(buf, off, block, blockLength, n);
+                blockLength += n;
+                off += n;
+                len -= n;
+                if (blockLength == block.length) {
+                    submitBlock();
+                }
+            }
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Starts encoding the current block in another thread, then writes any
+     * blocks that have been encoded. If the maximum number of blocks are
+     * already being encoded, waits for the oldest to finish.
+     */
+    private void submitBlock() throws IOException {
+        final PendingBlock pb = new PendingBlock(block, blockLength);
+        final LZMA2Options options = blockOptions;
+        pb.done = CompletableFuture.runAsync(() -> {
+            try {
+                pb.encode(options);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, SplitJoin.getInstance()::execute);
+        pending.add(pb);
+
+        final byte[] spare = spareBlocks.poll();
+        block = spare == null ? new byte[block.length] : spare;
+        blockLength = 0;
+
+        while (!pending.isEmpty() && (pending.size() > threads || pending.peek().done.isDone())) {
+            writePendingBlock();
+        }
+    }
+
+    /**
+     * Waits for the oldest pending block to be encoded, then writes its
+     * chunks to the stream.
+     */
+    private void writePendingBlock() throws IOException {
+        final PendingBlock pb = pending.remove();
+        try {
+            pb.done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException(cause);
+        }
+        pb.encoded.writeTo(out);
+        spareBlocks.add(pb.data);
+    }
+
+    /**
+     * Encodes any buffered input and writes all pending blocks.
+     */
+    private void drain() throws IOException {
+        if (exception != null) {
+            throw exception;
+        }
+        try {
+            if (blockLength > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writePendingBlock();
+            }
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (exception != null) {
+            throw exception;
+        }
+        if (finished) {
+            throw new IOException("Stream finished or closed");
+        }
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!finished) {
+            drain();
+            try {
+                out.write(0x00);
+                out.finish();
+            } catch (IOException e) {
+                exception = e;
+                throw e;
+            }
+            finished = true;
+            block = null;
+            spareBlocks.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            if (!finished) {
+                try {
+                    finish();
+                } catch (IOException e) {
+                }
+            }
+
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+
+            out = null;
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * A block of input and, once encoded, its LZMA2 chunks.
+     */
+    private static final class PendingBlock {
+
+        final byte[] data;
+        final int length;
+        CompletableFuture<Void> done;
+        ByteArrayOutputStream encoded;
+
+        PendingBlock(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        void encode(LZMA2Options options) throws IOException {
+            encoded = new ByteArrayOutputStream(length / 2 + 64);
+            final LZMA2OutputStream lzma2 = new LZMA2OutputStream(
+                    new FinishableWrapperOutputStream(encoded), options
+            );
+            lzma2.write(data, 0, length);
+            lzma2.finishBlock();
+        }
+    }
+}
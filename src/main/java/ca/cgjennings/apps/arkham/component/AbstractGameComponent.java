@@ -32,6 +32,7 @@ public abstract class AbstractGameComponent implements GameComponent {
 
     public AbstractGameComponent() {
         coreCheck();
+        privateSettings.setLookupCacheEnabled(true);
         name = "";
         comments = "";
         hasUnsavedChanges = false;
@@ -490,5 +491,6 @@ public abstract class AbstractGameComponent implements GameComponent {
         name = (String) in.readObject();
         comments = (String) in.readObject();
         privateSettings = (Settings) in.readObject();
+        privateSettings.setLookupCacheEnabled(true);
     }
 }
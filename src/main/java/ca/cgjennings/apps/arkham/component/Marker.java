@@ -566,6 +566,7 @@ public final class Marker extends AbstractGameComponent {
         portraitPanYb = in.readDouble();
 
         privateSettings = (Settings) in.readObject();
+        privateSettings.setLookupCacheEnabled(true);
 
         SEObjectInputStream sin = (SEObjectInputStream) in;
         portrait = sin.readImage();
@@ -399,7 +399,7 @@ public abstract class AbstractRenderedItem extends AbstractFlippableItem {
                 // (if mipdex is 0 then the slot is filled in and this loop is skipped)
                 Object hint = (target == RenderTarget.FAST_PREVIEW)
                         ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
-                        : RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+                        : ImageUtilities.VALUE_INTERPOLATION_MITCHELL;
                 for (int i = srcdex + 1; i <= mipdex; ++i) {
                     float factor = ((float) (MIP_MAP_RESOLUTIONS[i] / MIP_MAP_RESOLUTIONS[i - 1]));
                     try {
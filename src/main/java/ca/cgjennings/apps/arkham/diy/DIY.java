@@ -2743,6 +2743,7 @@ public class DIY extends AbstractGameComponent implements Handler {
         }
 
         privateSettings = (Settings) in.readObject();
+        privateSettings.setLookupCacheEnabled(true);
 
         locked = false;
         try {
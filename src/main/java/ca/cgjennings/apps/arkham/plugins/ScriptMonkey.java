@@ -22,6 +22,8 @@ import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.logging.Level;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
@@ -285,6 +287,51 @@ public final class ScriptMonkey {
         }
     }
 
+    /**
+     * Compiles a script stored in a string without running it. The compiled
+     * script can be run any number of times by passing it to
+     * {@link #eval(javax.script.CompiledScript)}, which avoids parsing the
+     * script source each time. A compiled script should only be evaluated by
+     * the monkey that compiled it.
+     *
+     * @param s the script code to compile
+     * @return the compiled script
+     * @throws ScriptException if the script cannot be compiled
+     * @since 3.4
+     */
+    public CompiledScript compile(String s) throws ScriptException {
+        if (s == null) {
+            throw new NullPointerException("s");
+        }
+        return ((Compilable) engine).compile(s);
+    }
+
+    /**
+     * Evaluates a previously compiled script. Any errors will be displayed on
+     * the script console.
+     *
+     * @param script a script compiled by this monkey
+     * @return the return value of the script code, if any
+     * @see #compile(java.lang.String)
+     * @since 3.4
+     */
+    public Object eval(CompiledScript script) {
+        if (script == null) {
+            throw new NullPointerException("script");
+        }
+        try {
+            if (breakpoint) {
+                breakpoint = false;
+                ScriptDebugging.setBreak();
+            }
+            return script.eval(engine.getContext());
+        } catch (ScriptException se) {
+            StrangeEons.log.log(Level.WARNING, "evaluation failed: " + engine.get(ScriptEngine.FILENAME), se);
+            scriptError(se);
+            return null;
+        }
+    }
+
     /**
      * Call a script function, returning {@code null} without displaying an
      * error if the method does not exist. If a script error occurs, an error
@@ -83,10 +83,7 @@ public enum RenderTarget {
             if (height < 1) {
                 height = 1;
             }
-            final boolean shrinkSmallImage = ((source.getWidth() * source.getHeight()) <= 4096) && (width < source.getWidth()) && (height < source.getHeight());
-            final Object hint1 = shrinkSmallImage ? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR;
-            final Object hint2 = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
-            return ImageUtilities.resample(source, width, height, true, hint1, hint2);
+            return ImageUtilities.resample(source, width, height, false, ImageUtilities.VALUE_INTERPOLATION_MITCHELL, null);
         }
     },
     /**
@@ -152,10 +149,7 @@ public enum RenderTarget {
         if (height < 1) {
             height = 1;
         }
-
-        final Object hint1 = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
-        final Object hint2 = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
-        return ImageUtilities.resample(source, width, height, true, hint1, hint2);
+        return ImageUtilities.resample(source, width, height);
     }
 
     /**
@@ -22,6 +22,7 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
 import java.awt.font.TextAttribute;
 import java.awt.geom.AffineTransform;
@@ -410,7 +411,14 @@ public abstract class Sheet<G extends GameComponent> {
                     paintSheetOverlays();
 
                     if (isTransparent() && isVariableSize()) {
-                        image = ImageUtilities.trim(image);
+                        // the image is recreated on every paint, so the
+                        // trimmed area can share its raster
+                        final Rectangle trim = ImageUtilities.getTrimmedBounds(image);
+                        if (trim == null) {
+                            image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+                        } else if (trim.width != image.getWidth() || trim.height != image.getHeight()) {
+                            image = image.getSubimage(trim.x, trim.y, trim.width, trim.height);
+                        }
                     }
 
                     if (logPainting) {
@@ -1803,6 +1811,9 @@ public abstract class Sheet<G extends GameComponent> {
         }
     }
 
+    // caches title layouts between repaints; see drawTitle, fitTitle, etc.
+    private final TitleCache titleCache = new TitleCache();
+
     /**
      * Draws text within a region. The text will be centered vertically in the
      * region. The horizontal alignment is determined by the alignment
@@ -1820,25 +1831,30 @@ public abstract class Sheet<G extends GameComponent> {
      * rectangle
      */
     public void drawTitle(Graphics2D g, String text, Rectangle region, Font font, float size, int alignment) {
-        Font f = font.deriveFont(size * (float) dpi / 72f);
-        FontMetrics fm = g.getFontMetrics(f);
-
         if (MarkupRenderer.DEBUG) {
             drawRegionBox(g, region);
         }
 
-        int x;
-        if (alignment < 0) {
-            x = region.x;
-        } else if (alignment == 0) {
-            x = region.x + (region.width - fm.stringWidth(text)) / 2;
-        } else {
-            x = region.x + region.width - fm.stringWidth(text);
-        }
-        int y = region.y + fm.getAscent() + (region.height - fm.getHeight()) / 2;
+        final float pixelSize = size * (float) dpi / 72f;
+        final FontRenderContext frc = g.getFontRenderContext();
+        final TitleCache.Key key = new TitleCache.Key(TitleCache.DRAW, text, font, pixelSize, alignment, region, frc, 0f);
+        TitleCache.Entry title = titleCache.get(key);
+        if (title == null) {
+            Font f = font.deriveFont(pixelSize);
+            FontMetrics fm = g.getFontMetrics(f);
 
-        g.setFont(f);
-        g.drawString(text, x, y);
+            int x;
+            if (alignment < 0) {
+                x = region.x;
+            } else if (alignment == 0) {
+                x = region.x + (region.width - fm.stringWidth(text)) / 2;
+            } else {
+                x = region.x + region.width - fm.stringWidth(text);
+            }
+            int y = region.y + fm.getAscent() + (region.height - fm.getHeight()) / 2;
+            title = titleCache.put(key, new TitleCache.Entry(text, f, x, y, frc));
+        }
+        title.drawText(g);
     }
 
     /**
@@ -1900,30 +1916,36 @@ public abstract class Sheet<G extends GameComponent> {
      * rectangle
      */
     public void fitTitle(Graphics2D g, String text, Rectangle region, Font font, float maxSize, int alignment) {
-        Font f = font.deriveFont(maxSize * (float) dpi / 72f);
-        FontMetrics fm = g.getFontMetrics(f);
-
         if (MarkupRenderer.DEBUG) {
             drawRegionBox(g, region);
         }
 
-        int textWidth = fm.stringWidth(text);
-        if (textWidth > region.width) {
-            float scale = region.width / (float) fm.stringWidth(text);
-            f = font.deriveFont(scale * maxSize * (float) dpi / 72f);
-            fm = g.getFontMetrics(f);
-            textWidth = fm.stringWidth(text);
-        }
+        final float pixelSize = maxSize * (float) dpi / 72f;
+        final FontRenderContext frc = g.getFontRenderContext();
+        final TitleCache.Key key = new TitleCache.Key(TitleCache.FIT, text, font, pixelSize, alignment, region, frc, 0f);
+        TitleCache.Entry title = titleCache.get(key);
+        if (title == null) {
+            Font f = font.deriveFont(pixelSize);
+            FontMetrics fm = g.getFontMetrics(f);
+
+            int textWidth = fm.stringWidth(text);
+            if (textWidth > region.width) {
+                float scale = region.width / (float) fm.stringWidth(text);
+                f = font.deriveFont(scale * pixelSize);
+                fm = g.getFontMetrics(f);
+                textWidth = fm.stringWidth(text);
+            }
 
-        g.setFont(f);
-        int x = region.x;
-        if (alignment == ALIGN_CENTER) {
-            x += (region.width - textWidth) / 2;
-        } else if (alignment >= ALIGN_RIGHT) {
-            x += region.width - textWidth;
+            int x = region.x;
+            if (alignment == ALIGN_CENTER) {
+                x += (region.width - textWidth) / 2;
+            } else if (alignment >= ALIGN_RIGHT) {
+                x += region.width - textWidth;
+            }
+            int y = region.y + fm.getAscent() + (region.height - fm.getHeight()) / 2;
+            title = titleCache.put(key, new TitleCache.Entry(text, f, x, y, frc));
         }
-        int y = region.y + fm.getAscent() + (region.height - fm.getHeight()) / 2;
-        g.drawString(text, x, y);
+        title.drawText(g);
     }
 
     /**
@@ -1945,44 +1967,51 @@ public abstract class Sheet<G extends GameComponent> {
      * the text, otherwise overtop of it
      */
     public void drawOutlinedTitle(Graphics2D g, String text, Rectangle region, Font font, float maxSize, float outlineSize, Paint textColor, Paint outlineColor, int alignment, boolean outlineUnderneath) {
-        Font f = font.deriveFont(maxSize * (float) dpi / 72f);
-        GlyphVector gv = f.createGlyphVector(g.getFontRenderContext(), text);
-        Rectangle2D bounds = gv.getLogicalBounds();
-
-        if (bounds.getWidth() > region.getWidth()) {
-            f = f.deriveFont((float) (region.getWidth() / bounds.getWidth()) * maxSize * (float) dpi / 72f);
-            gv = f.createGlyphVector(g.getFontRenderContext(), text);
-            bounds = gv.getLogicalBounds();
-        }
-
-        float y = region.y + (float) (region.height - bounds.getHeight()) / 2f;
-        float x;
-        if (alignment > 0) {
-            x = (float) (region.x + region.width - bounds.getWidth());
-        } else if (alignment < 0) {
-            x = region.x;
-        } else {
-            x = (float) (region.x + (region.width - bounds.getWidth()) / 2f);
+        final float pixelSize = maxSize * (float) dpi / 72f;
+        final float pixelOutlineSize = outlineSize * (float) dpi / 72f;
+        final FontRenderContext frc = g.getFontRenderContext();
+        final TitleCache.Key key = new TitleCache.Key(TitleCache.OUTLINED, text, font, pixelSize, alignment, region, frc, pixelOutlineSize);
+        TitleCache.Entry title = titleCache.get(key);
+        if (title == null) {
+            Font f = font.deriveFont(pixelSize);
+            GlyphVector gv = f.createGlyphVector(frc, text);
+            Rectangle2D bounds = gv.getLogicalBounds();
+
+            if (bounds.getWidth() > region.getWidth()) {
+                f = f.deriveFont((float) (region.getWidth() / bounds.getWidth()) * pixelSize);
+                gv = f.createGlyphVector(frc, text);
+                bounds = gv.getLogicalBounds();
+            }
+
+            float y = region.y + (float) (region.height - bounds.getHeight()) / 2f;
+            float x;
+            if (alignment > 0) {
+                x = (float) (region.x + region.width - bounds.getWidth());
+            } else if (alignment < 0) {
+                x = region.x;
+            } else {
+                x = (float) (region.x + (region.width - bounds.getWidth()) / 2f);
+            }
+
+            Shape s = gv.getOutline(x, y + g.getFontMetrics(f).getAscent());
+            Shape outline = new BasicStroke(pixelOutlineSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND).createStrokedShape(s);
+            title = titleCache.put(key, new TitleCache.Entry(f, s, outline));
         }
 
-        Shape s = gv.getOutline(x, y + g.getFontMetrics(f).getAscent());
         Object oldAA = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         if (!outlineUnderneath) {
             g.setPaint(textColor);
-            g.fill(s);
+            g.fill(title.getFill());
         }
 
-        Stroke oldStroke = g.getStroke();
-        g.setStroke(new BasicStroke(outlineSize * (float) dpi / 72f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         g.setPaint(outlineColor);
-        g.draw(s);
-        g.setStroke(oldStroke);
+        g.fill(title.getOutline());
 
         if (outlineUnderneath) {
             g.setPaint(textColor);
-            g.fill(s);
+            g.fill(title.getFill());
         }
 
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAA);
@@ -2099,24 +2128,33 @@ public abstract class Sheet<G extends GameComponent> {
      */
     @Deprecated
     public void centerTitle(Graphics2D g, String text, Rectangle r, Font font, float size, boolean embolden) {
-        Font f = font.deriveFont(size * (float) getTemplateResolution() / 72f);
-        if (embolden) {
-            if (f.isBold()) {
-                f = f.deriveFont(Collections.singletonMap(TextAttribute.WEIGHT, TextAttribute.WEIGHT_EXTRABOLD));
-            } else {
-                f = f.deriveFont(f.getStyle() | Font.BOLD);
-            }
+        if (MarkupRenderer.DEBUG) {
+            drawRegionBox(g, r);
         }
 
-        FontMetrics fm = g.getFontMetrics(f);
+        final float pixelSize = size * (float) getTemplateResolution() / 72f;
+        final FontRenderContext frc = g.getFontRenderContext();
+        final TitleCache.Key key = new TitleCache.Key(
+                embolden ? TitleCache.CENTER_BOLD : TitleCache.CENTER,
+                text, font, pixelSize, ALIGN_CENTER, r, frc, 0f
+        );
+        TitleCache.Entry title = titleCache.get(key);
+        if (title == null) {
+            Font f = font.deriveFont(pixelSize);
+            if (embolden) {
+                if (f.isBold()) {
+                    f = f.deriveFont(Collections.singletonMap(TextAttribute.WEIGHT, TextAttribute.WEIGHT_EXTRABOLD));
+                } else {
+                    f = f.deriveFont(f.getStyle() | Font.BOLD);
+                }
+            }
 
-        if (MarkupRenderer.DEBUG) {
-            drawRegionBox(g, r);
+            FontMetrics fm = g.getFontMetrics(f);
+            int x = r.x + (r.width - fm.stringWidth(text)) / 2;
+            int y = r.y + fm.getAscent() + (r.height - fm.getHeight()) / 2;
+            title = titleCache.put(key, new TitleCache.Entry(text, f, x, y, frc));
         }
-        g.setFont(f);
-        int x = r.x + (r.width - fm.stringWidth(text)) / 2;
-        int y = r.y + fm.getAscent() + (r.height - fm.getHeight()) / 2;
-        g.drawString(text, x, y);
+        title.drawText(g);
     }
 
     /**
@@ -2190,7 +2228,7 @@ public abstract class Sheet<G extends GameComponent> {
                 for (int i = 1; i < levels; ++i) {
                     mipmap[i] = ImageUtilities.resample(
                             mipmap[i - 1], mipmap[i - 1].getWidth() / 2, mipmap[i - 1].getHeight() / 2,
-                            false, RenderingHints.VALUE_INTERPOLATION_BICUBIC, null
+                            false, ImageUtilities.VALUE_INTERPOLATION_MITCHELL, null
                     );
                 }
                 mipmapMap.put(original, mipmap);
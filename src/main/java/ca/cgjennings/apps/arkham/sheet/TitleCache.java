@@ -0,0 +1,258 @@
+package ca.cgjennings.apps.arkham.sheet;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the laid out form of titles drawn by the {@link Sheet} title helper
+ * methods. Titles are redrawn every time a sheet is painted, which typically
+ * happens after every edit to any field of the component, but the title text
+ * itself rarely changes. Each entry stores the fitted font, the position of
+ * the text within its region, and (for outlined titles) the glyph outline and
+ * stroked outline shapes, so that redrawing an unchanged title only needs to
+ * fill the cached result.
+ *
+ * <p>
+ * Each sheet owns its own cache. Since a sheet is only painted by one thread
+ * at a time, the cache is not synchronized.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class TitleCache {
+
+    /**
+     * Entry kind for {@link Sheet#drawTitle}.
+     */
+    static final int DRAW = 0;
+    /**
+     * Entry kind for {@link Sheet#fitTitle}.
+     */
+    static final int FIT = 1;
+    /**
+     * Entry kind for {@link Sheet#drawOutlinedTitle}.
+     */
+    static final int OUTLINED = 2;
+    /**
+     * Entry kind for {@link Sheet#centerTitle}.
+     */
+    static final int CENTER = 3;
+    /**
+     * Entry kind for {@link Sheet#centerTitle} with emboldening.
+     */
+    static final int CENTER_BOLD = 4;
+
+    private static final int MAX_ENTRIES = 32;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(MAX_ENTRIES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TitleCache.Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Returns the cached entry for a key, or {@code null}.
+     *
+     * @param key the key describing the title
+     * @return the cached layout, or {@code null} if it is not cached
+     */
+    Entry get(Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Adds a new entry to the cache, possibly evicting the least recently
+     * used entry.
+     *
+     * @param key the key describing the title
+     * @param entry the layout to cache
+     * @return the added entry
+     */
+    Entry put(Key key, Entry entry) {
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Identifies a title layout: everything that affects the position and
+     * shape of the drawn text, but not its paint.
+     */
+    static final class Key {
+
+        private final int kind;
+        private final String text;
+        private final Font font;
+        private final float size;
+        private final int alignment;
+        private final int x, y, w, h;
+        private final FontRenderContext frc;
+        private final float outlineSize;
+        private final int hash;
+
+        /**
+         * Creates a new key.
+         *
+         * @param kind the type of title drawing operation
+         * @param text the title text
+         * @param font the base font before deriving the requested size
+         * @param size the font size in pixels
+         * @param alignment the horizontal alignment
+         * @param region the region the title is drawn in
+         * @param frc the font render context of the destination
+         * @param outlineSize the outline width in pixels, or 0
+         */
+        Key(int kind, String text, Font font, float size, int alignment, Rectangle region, FontRenderContext frc, float outlineSize) {
+            this.kind = kind;
+            this.text = text;
+            this.font = font;
+            this.size = size;
+            this.alignment = alignment;
+            x = region.x;
+            y = region.y;
+            w = region.width;
+            h = region.height;
+            this.frc = frc;
+            this.outlineSize = outlineSize;
+
+            int hc = kind;
+            hc = 31 * hc + text.hashCode();
+            hc = 31 * hc + font.hashCode();
+            hc = 31 * hc + Float.floatToIntBits(size);
+            hc = 31 * hc + alignment;
+            hc = 31 * hc + x;
+            hc = 31 * hc + y;
+            hc = 31 * hc + w;
+            hc = 31 * hc + h;
+            hc = 31 * hc + frc.hashCode();
+            hc = 31 * hc + Float.floatToIntBits(outlineSize);
+            hash = hc;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            return hash == k.hash && kind == k.kind && alignment == k.alignment
+                    && x == k.x && y == k.y && w == k.w && h == k.h
+                    && Float.floatToIntBits(size) == Float.floatToIntBits(k.size)
+                    && Float.floatToIntBits(outlineSize) == Float.floatToIntBits(k.outlineSize)
+                    && text.equals(k.text) && font.equals(k.font) && frc.equals(k.frc);
+        }
+    }
+
+    /**
+     * A cached title layout.
+     */
+    static final class Entry {
+
+        private final String text;
+        private final Font font;
+        private final float x, y;
+        private final GlyphVector glyphs;
+        private final Shape fill;
+        private final Shape outline;
+
+        /**
+         * Creates an entry for a title that is drawn as text. If neither the
+         * text nor the font's attributes (such as kerning, ligatures, or
+         * underlining) require layout, a glyph vector is created and reused
+         * for drawing; otherwise the text is drawn with {@code drawString}.
+         *
+         * @param text the title text
+         * @param font the fitted font
+         * @param x the x-coordinate of the text baseline origin
+         * @param y the y-coordinate of the text baseline origin
+         * @param frc the font render context of the destination
+         */
+        Entry(String text, Font font, float x, float y, FontRenderContext frc) {
+            this.text = text;
+            this.font = font;
+            this.x = x;
+            this.y = y;
+            final char[] chars = text.toCharArray();
+            glyphs = font.hasLayoutAttributes() || Font.textRequiresLayout(chars, 0, chars.length)
+                    ? null : font.createGlyphVector(frc, chars);
+            fill = null;
+            outline = null;
+        }
+
+        /**
+         * Creates an entry for a title that is drawn by filling shapes.
+         *
+         * @param font the fitted font
+         * @param fill the glyph outline shape, in destination coordinates
+         * @param outline the stroked glyph outline, in destination coordinates
+         */
+        Entry(Font font, Shape fill, Shape outline) {
+            this.text = null;
+            this.font = font;
+            x = 0f;
+            y = 0f;
+            glyphs = null;
+            this.fill = fill;
+            this.outline = outline;
+        }
+
+        /**
+         * Returns the fitted font.
+         *
+         * @return the font used to draw the title
+         */
+        Font getFont() {
+            return font;
+        }
+
+        /**
+         * Returns the filled glyph shape of an outlined title.
+         *
+         * @return the glyph outline
+         */
+        Shape getFill() {
+            return fill;
+        }
+
+        /**
+         * Returns the stroked outline shape of an outlined title.
+         *
+         * @return the outline to fill in the outline colour
+         */
+        Shape getOutline() {
+            return outline;
+        }
+
+        /**
+         * Draws a text entry using the current paint of the graphics context.
+         * As with {@code drawString}, the font of the context is set to the
+         * fitted font.
+         *
+         * @param g the graphics context to draw to
+         */
+        void drawText(Graphics2D g) {
+            g.setFont(font);
+            if (glyphs != null) {
+                g.drawGlyphVector(glyphs, x, y);
+            } else {
+                g.drawString(text, x, y);
+            }
+        }
+    }
+}
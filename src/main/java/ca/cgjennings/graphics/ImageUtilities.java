@@ -17,6 +17,7 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.Transparency;
@@ -480,6 +481,32 @@ public final class ImageUtilities {
         return new InversionFilter().filter(source, null);
     }
 
+    /**
+     * An interpolation hint value that resamples images with a three-lobed
+     * Lanczos filter. This produces sharp results, particularly when reducing
+     * an image, but may introduce faint halos next to hard edges. It can be
+     * passed as the final pass hint to
+     * {@link #resample(java.awt.image.BufferedImage, int, int, boolean, java.lang.Object, java.lang.Object)}.
+     * The image is then resampled in a single pass using all available CPUs;
+     * the multipass flag and the intermediate hint are ignored.
+     *
+     * @since 3.4
+     */
+    public static final Object VALUE_INTERPOLATION_LANCZOS = Resampler.Kernel.LANCZOS3;
+
+    /**
+     * An interpolation hint value that resamples images with a
+     * Mitchell-Netravali cubic filter. This is faster than
+     * {@link #VALUE_INTERPOLATION_LANCZOS} and produces slightly softer results
+     * without halos. It can be passed as the final pass hint to
+     * {@link #resample(java.awt.image.BufferedImage, int, int, boolean, java.lang.Object, java.lang.Object)}.
+     * The image is then resampled in a single pass using all available CPUs;
+     * the multipass flag and the intermediate hint are ignored.
+     *
+     * @since 3.4
+     */
+    public static final Object VALUE_INTERPOLATION_MITCHELL = Resampler.Kernel.MITCHELL;
+
     /**
      * Resample an image by a scaling factor, at a high level of quality.
      *
@@ -496,7 +523,7 @@ public final class ImageUtilities {
         if (h < 1) {
             h = 1;
         }
-        return resample(src, w, h, true, RenderingHints.VALUE_INTERPOLATION_BICUBIC, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        return resample(src, w, h);
     }
 
     public static BufferedImage resample(BufferedImage src, float factor, boolean multipass, Object finalPassHint, Object intermediateHint) {
@@ -520,10 +547,10 @@ public final class ImageUtilities {
      * @return a new image at the requested size
      */
     public static BufferedImage resample(BufferedImage src, int width, int height) {
-        return resample(src, width, height, true,
-                RenderingHints.VALUE_INTERPOLATION_BICUBIC,
-                RenderingHints.VALUE_INTERPOLATION_BILINEAR
-        );
+        // Lanczos halos are more visible when enlarging
+        final Object hint = width <= src.getWidth() && height <= src.getHeight()
+                ? VALUE_INTERPOLATION_LANCZOS : VALUE_INTERPOLATION_MITCHELL;
+        return resample(src, width, height, true, hint, null);
     }
 
     /**
@@ -550,6 +577,8 @@ public final class ImageUtilities {
      * <td>VALUE_INTERPOLATION_BILINEAR<td>VALUE_INTERPOLATION_BICUBIC</tr>
      * <tr><td>{@code true}
      * <td>VALUE_INTERPOLATION_BICUBIC<td>VALUE_INTERPOLATION_BICUBIC</tr>
+     * <tr><td>(ignored)<td>{@link #VALUE_INTERPOLATION_MITCHELL}<td>(ignored)</tr>
+     * <tr><td>(ignored)<td>{@link #VALUE_INTERPOLATION_LANCZOS}<td>(ignored)</tr>
      * </table>
      *
      * @param src the source image
@@ -569,6 +598,9 @@ public final class ImageUtilities {
         if (width == swidth && height == sheight) {
             return src;
         }
+        if (finalPassHint instanceof Resampler.Kernel) {
+            return Resampler.resample(src, width, height, (Resampler.Kernel) finalPassHint);
+        }
 
         int w, h;
         if (multipass) {
@@ -869,6 +901,24 @@ public final class ImageUtilities {
     }
     private static final TrimFilter TRIMMER = new TrimFilter();
 
+    /**
+     * Returns the bounds of the part of an image that {@link #trim} would
+     * keep, without copying it. If the caller does not need a separate copy,
+     * it can pass the bounds to {@link BufferedImage#getSubimage} instead of
+     * allocating a new image. If the image has no fully transparent edges,
+     * returns the bounds of the whole image.
+     *
+     * @param sourceImage the image to find the trimmed bounds of
+     * @return the bounds of the non-transparent part of the image, or
+     * {@code null} if the entire image is fully transparent
+     * @throws NullPointerException if the image is {@code null}
+     * @see TrimFilter#getTrimmedBounds
+     * @since 3.4
+     */
+    public static Rectangle getTrimmedBounds(BufferedImage sourceImage) {
+        return TRIMMER.getTrimmedBounds(sourceImage);
+    }
+
     /**
      * Returns a mirrored version of the source image. If neither parameter is
      * {@code true}, the original image is returned. Otherwise, a copy is
@@ -1003,7 +1053,8 @@ public final class ImageUtilities {
     /**
      * Returns {@code true} if every pixel in this image is fully opaque. If the
      * image has no alpha channel, then {@code true} is returned immediately.
-     * Otherwise, the image is checked pixel-by-pixel.
+     * Otherwise, the image is checked pixel-by-pixel until a translucent pixel
+     * is found. Large images are checked in parallel.
      *
      * @param bi the image to check
      * @return {@code true} if and only if every pixel is opaque
@@ -1017,19 +1068,10 @@ public final class ImageUtilities {
             return true;
         }
 
-        final int width = bi.getWidth(), height = bi.getHeight();
-        final int[] row = new int[width];
-        for (int y = 0; y < height; ++y) {
-            AbstractImageFilter.getARGB(bi, 0, y, width, 1, row);
-            for (int x = 0; x < width; ++x) {
-                if ((row[x] & 0xff000000) != 0xff000000) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return OPACITY_TEST.isEntirelyTrimmable(bi);
     }
-    
+    private static final TrimFilter OPACITY_TEST = new TrimFilter(0xff000000, 0xff000000);
+
     /**
      * Waits for an image to load.
      * Generic {@code Image} instances, such as those obtained from the
@@ -5,18 +5,26 @@ import ca.cgjennings.graphics.filters.Tuning;
 import java.awt.CompositeContext;
 import java.awt.RenderingHints;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /**
  * This abstract implementation of {@code CompositeContext} is designed to
  * handle RGB/ARGB data. Subclasses must implement the abstract general case
  * method, and may optionally override other methods to provide special case
  * code for use when the {@code VALUE_ALPHA_INTERPOLATION_SPEED} hint is set
- * and/or the source and destination both have 4 bands (ARGB). The context will
- * transparently make use of multiple CPUs to increase compositing performance,
- * so subclasses must ensure that their implementations of {@code compose}
- * methods can be called concurrently from multiple threads.
+ * and/or the source and destination both have 4 bands (ARGB). Subclasses can
+ * also override {@link #composePacked} and {@link #composeFPacked} to work
+ * directly on packed pixels when all of the rasters use the standard
+ * {@code int} (A)RGB layout, which avoids unpacking each pixel into separate
+ * band samples and back again. The context will transparently make use of
+ * multiple CPUs to increase compositing performance, so subclasses must ensure
+ * that their implementations of {@code compose} methods can be called
+ * concurrently from multiple threads.
  *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  */
@@ -56,6 +64,9 @@ public abstract class AbstractCompositeContext implements CompositeContext {
             throw new UnsupportedOperationException("unsupported number of bands in destination raster: " + dBands);
         }
 
+        final boolean packed = isPacked(top, sBands) && isPacked(bottom, dBands) && isPacked(dest, dBands)
+                && PACKED_SUPPORT.get(getClass());
+
         boolean parallel = w > Tuning.PER_ROW / h;
 
         if (parallel) {
@@ -64,18 +75,46 @@ public abstract class AbstractCompositeContext implements CompositeContext {
             final int rowsPerTask = h / n;
             final int remainder = h - n * rowsPerTask;
             Runnable[] units = new Runnable[n];
-            int y = 0;
+            int y = y1;
             for (int i = 0; i < n; ++i) {
                 int rows = rowsPerTask;
                 if (i < remainder) {
                     ++rows;
                 }
-                units[i] = new CompositingUnit(dest, top, bottom, y, y + rows - 1, x, w, aFactor, sBands, dBands);
+                final int ty1 = y;
+                final int ty2 = y + rows - 1;
+                units[i] = () -> composeRows(top, bottom, dest, ty1, ty2, x, w, aFactor, sBands, dBands, packed);
                 y += rows;
             }
             sj.runUnchecked(units);
-        } // serial processing
-        else if (sBands == 4 && dBands == 4) {
+        } else {
+            composeRows(top, bottom, dest, y1, y2, x, w, aFactor, sBands, dBands, packed);
+        }
+    }
+
+    /**
+     * Composes the rows from {@code y1} to {@code y2}, inclusive.
+     */
+    private void composeRows(Raster top, Raster bottom, WritableRaster dest, int y1, int y2, int x, int w, int aFactor, int sBands, int dBands, boolean packed) {
+        if (packed) {
+            int[] src = null;
+            int[] dst = null;
+            for (int y = y1; y <= y2; y++) {
+                src = (int[]) top.getDataElements(x, y, w, 1, src);
+                dst = (int[]) bottom.getDataElements(x, y, w, 1, dst);
+                if (sBands == 3) {
+                    for (int i = 0; i < w; ++i) {
+                        src[i] |= 0xff000000;
+                    }
+                }
+                if (fast) {
+                    composeFPacked(src, dst, aFactor);
+                } else {
+                    composePacked(src, dst, aFactor);
+                }
+                dest.setDataElements(x, y, w, 1, dst);
+            }
+        } else if (sBands == 4 && dBands == 4) {
             if (fast) {
                 int[] src = null;
                 int[] dst = null;
@@ -85,7 +124,6 @@ public abstract class AbstractCompositeContext implements CompositeContext {
                     composeF44(src, dst, aFactor);
                     dest.setPixels(x, y, w, 1, dst);
                 }
-
             } else {
                 int[] src = null;
                 int[] dst = null;
@@ -119,74 +157,43 @@ public abstract class AbstractCompositeContext implements CompositeContext {
         }
     }
 
-    private class CompositingUnit implements Runnable {
-
-        private final WritableRaster dest;
-        private final Raster top;
-        private Raster bottom;
-        private final int y1;
-        private int y2, x, w, aFactor;
-        private final int sBands;
-        private int dBands;
-
-        public CompositingUnit(WritableRaster dest, Raster top, Raster bottom, int y1, int y2, int x, int w, int aFactor, int sBands, int dBands) {
-            this.dest = dest;
-            this.top = top;
-            this.bottom = bottom;
-            this.y1 = y1;
-            this.y2 = y2;
-            this.x = x;
-            this.w = w;
-            this.aFactor = aFactor;
-            this.sBands = sBands;
-            this.dBands = dBands;
+    /**
+     * Returns whether a raster stores each pixel as a single packed
+     * {@code int} with the standard (A)RGB layout, as used by
+     * {@code TYPE_INT_RGB}, {@code TYPE_INT_ARGB}, and
+     * {@code TYPE_INT_ARGB_PRE} images.
+     */
+    private static boolean isPacked(Raster r, int bands) {
+        if (r.getTransferType() != DataBuffer.TYPE_INT || !(r.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            return false;
         }
+        final int[] masks = ((SinglePixelPackedSampleModel) r.getSampleModel()).getBitMasks();
+        return masks.length == bands
+                && masks[0] == 0xff0000 && masks[1] == 0xff00 && masks[2] == 0xff
+                && (bands == 3 || masks[3] == 0xff000000);
+    }
 
+    /**
+     * Records whether a context class overrides one of the packed compose
+     * methods. Contexts that only implement the band methods use the band
+     * path, since the packed methods would only unpack the pixels again.
+     */
+    private static final ClassValue<Boolean> PACKED_SUPPORT = new ClassValue<Boolean>() {
         @Override
-        public void run() {
-            if (sBands == 4 && dBands == 4) {
-                if (fast) {
-                    int[] src = null;
-                    int[] dst = null;
-                    for (int y = y1; y <= y2; y++) {
-                        src = top.getPixels(x, y, w, 1, src);
-                        dst = bottom.getPixels(x, y, w, 1, dst);
-                        composeF44(src, dst, aFactor);
-                        dest.setPixels(x, y, w, 1, dst);
-                    }
-                } else {
-                    int[] src = null;
-                    int[] dst = null;
-                    for (int y = y1; y <= y2; y++) {
-                        src = top.getPixels(x, y, w, 1, src);
-                        dst = bottom.getPixels(x, y, w, 1, dst);
-                        compose44(src, dst, aFactor);
-                        dest.setPixels(x, y, w, 1, dst);
-                    }
-                }
-            } else {
-                if (fast) {
-                    int[] src = null;
-                    int[] dst = null;
-                    for (int y = y1; y <= y2; y++) {
-                        src = top.getPixels(x, y, w, 1, src);
-                        dst = bottom.getPixels(x, y, w, 1, dst);
-                        composeFxx(src, dst, sBands, dBands, aFactor);
-                        dest.setPixels(x, y, w, 1, dst);
-                    }
-                } else {
-                    int[] src = null;
-                    int[] dst = null;
-                    for (int y = y1; y <= y2; y++) {
-                        src = top.getPixels(x, y, w, 1, src);
-                        dst = bottom.getPixels(x, y, w, 1, dst);
-                        compose(src, dst, sBands, dBands, aFactor);
-                        dest.setPixels(x, y, w, 1, dst);
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != AbstractCompositeContext.class; c = c.getSuperclass()) {
+                for (Method m : c.getDeclaredMethods()) {
+                    final String name = m.getName();
+                    if ((name.equals("composePacked") || name.equals("composeFPacked"))
+                            && Arrays.equals(m.getParameterTypes(), PACKED_PARAMETERS)) {
+                        return true;
                     }
                 }
             }
+            return false;
         }
-    }
+    };
+    private static final Class<?>[] PACKED_PARAMETERS = new Class<?>[]{int[].class, int[].class, int.class};
 
     /**
      * Subclasses must override this to perform general case compositing.
@@ -236,6 +243,74 @@ public abstract class AbstractCompositeContext implements CompositeContext {
         compose(src, dst, 4, 4, aFactor);
     }
 
+    /**
+     * This method can be overidden to provide special case code for rows of
+     * packed ARGB pixels, as stored by {@code TYPE_INT_RGB},
+     * {@code TYPE_INT_ARGB}, and {@code TYPE_INT_ARGB_PRE} images. Each
+     * element holds one pixel, with alpha in the high byte and blue in the low
+     * byte; the alpha of source pixels without an alpha channel is 255. The
+     * composed pixels must be stored in {@code dst}, keeping the destination
+     * alpha. Working on packed pixels avoids unpacking each pixel into
+     * separate samples. The default implementation forwards to
+     * {@code composeFPacked( src, dst, aFactor )}.
+     *
+     * @param src the source pixels to mix
+     * @param dst the destination pixels to be mixed into
+     * @param aFactor the composite's alpha value, from 0 to 255
+     * @since 3.4
+     */
+    protected void composePacked(int[] src, int[] dst, int aFactor) {
+        composeFPacked(src, dst, aFactor);
+    }
+
+    /**
+     * This method can be overidden to provide special case code for rows of
+     * packed ARGB pixels when the alpha interpolation rendering hint is set
+     * for speed. The default implementation unpacks the pixels and forwards
+     * to {@code composeF44( src, dst, aFactor )}.
+     *
+     * @param src the source pixels to mix
+     * @param dst the destination pixels to be mixed into
+     * @param aFactor the composite's alpha value, from 0 to 255
+     * @see #composePacked
+     * @since 3.4
+     */
+    protected void composeFPacked(int[] src, int[] dst, int aFactor) {
+        final int n = src.length;
+        final int[] s = new int[n * 4];
+        final int[] d = new int[n * 4];
+        for (int i = 0, j = 0; i < n; ++i, j += 4) {
+            unpack(src[i], s, j);
+            unpack(dst[i], d, j);
+        }
+        composeF44(s, d, aFactor);
+        for (int i = 0, j = 0; i < n; ++i, j += 4) {
+            dst[i] = pack(d[j + 3], d[j], d[j + 1], d[j + 2]);
+        }
+    }
+
+    private static void unpack(int argb, int[] bands, int i) {
+        bands[i] = (argb >>> 16) & 0xff;
+        bands[i + 1] = (argb >>> 8) & 0xff;
+        bands[i + 2] = argb & 0xff;
+        bands[i + 3] = argb >>> 24;
+    }
+
+    /**
+     * Packs channel values into an ARGB pixel. As when samples are stored in
+     * a raster, only the low 8 bits of each value are kept.
+     *
+     * @param a the alpha value
+     * @param r the red value
+     * @param g the green value
+     * @param b the blue value
+     * @return the packed pixel
+     * @since 3.4
+     */
+    protected static int pack(int a, int r, int g, int b) {
+        return (a << 24) | ((r & 0xff) << 16) | ((g & 0xff) << 8) | (b & 0xff);
+    }
+
     @Override
     public void dispose() {
     }
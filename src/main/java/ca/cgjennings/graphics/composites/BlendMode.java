@@ -122,6 +122,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > dR ? sR : dR;
+                        sG = sG > dG ? sG : dG;
+                        sB = sB > dB ? sB : dB;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > dR ? sR : dR;
+                        sG = sG > dG ? sG : dG;
+                        sB = sB > dB ? sB : dB;
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -209,6 +251,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR < dR ? sR : dR;
+                        sG = sG < dG ? sG : dG;
+                        sB = sB < dB ? sB : dB;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR < dR ? sR : dR;
+                        sG = sG < dG ? sG : dG;
+                        sB = sB < dB ? sB : dB;
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -298,6 +382,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.min(255, sR + dR);
+                        sG = Math.min(255, sG + dG);
+                        sB = Math.min(255, sB + dB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.min(255, sR + dR);
+                        sG = Math.min(255, sG + dG);
+                        sB = Math.min(255, sB + dB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -390,6 +516,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.max(0, dR - sR);
+                        sG = Math.max(0, dG - sG);
+                        sB = Math.max(0, dB - sB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.max(0, dR - sR);
+                        sG = Math.max(0, dG - sG);
+                        sB = Math.max(0, dB - sB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -477,6 +645,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > dR ? sR - dR : dR - sR;
+                        sG = sG > dG ? sG - dG : dG - sG;
+                        sB = sB > dB ? sB - dB : dB - sB;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > dR ? sR - dR : dR - sR;
+                        sG = sG > dG ? sG - dG : dG - sG;
+                        sB = sB > dB ? sB - dB : dB - sB;
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -564,6 +774,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = dR + mul(sR, 255 - dR - dR);
+                        sG = dG + mul(sG, 255 - dG - dG);
+                        sB = dB + mul(sB, 255 - dB - dB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = dR + mul(sR, 255 - dR - dR);
+                        sG = dG + mul(sG, 255 - dG - dG);
+                        sB = dB + mul(sB, 255 - dB - dB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -652,6 +904,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = 255 - (sR > dR ? sR - dR : dR - sR);
+                        sG = 255 - (sG > dG ? sG - dG : dG - sG);
+                        sB = 255 - (sB > dB ? sB - dB : dB - sB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = 255 - (sR > dR ? sR - dR : dR - sR);
+                        sG = 255 - (sG > dG ? sG - dG : dG - sG);
+                        sB = 255 - (sB > dB ? sB - dB : dB - sB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -720,6 +1014,40 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, mul(src[i + 2], dst[i + 2])) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, mul(sR, dR)) + mix(dA, dR),
+                                mix(sA, mul(sG, dG)) + mix(dA, dG),
+                                mix(sA, mul(sB, dB)) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, mul(sR, dR)) + fmix(dA, dR),
+                                fmix(sA, mul(sG, dG)) + fmix(dA, dG),
+                                fmix(sA, mul(sB, dB)) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -821,6 +1149,54 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        int t = (255 - dR) * (255 - sR) + 0x80;
+                        sR = 255 - (((t >> 8) + t) >> 8);
+                        t = (255 - dG) * (255 - sG) + 0x80;
+                        sG = 255 - (((t >> 8) + t) >> 8);
+                        t = (255 - dB) * (255 - sB) + 0x80;
+                        sB = 255 - (((t >> 8) + t) >> 8);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        int t = (255 - dR) * (255 - sR) + 0x80;
+                        sR = 255 - (((t >> 8) + t) >> 8);
+                        t = (255 - dG) * (255 - sG) + 0x80;
+                        sG = 255 - (((t >> 8) + t) >> 8);
+                        t = (255 - dB) * (255 - sB) + 0x80;
+                        sB = 255 - (((t >> 8) + t) >> 8);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -908,6 +1284,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp(255 - (((255 - Math.min(254, sR)) << 8) / (dR + 1)));
+                        sG = clamp(255 - (((255 - Math.min(254, sG)) << 8) / (dG + 1)));
+                        sB = clamp(255 - (((255 - Math.min(254, sB)) << 8) / (dB + 1)));
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp(255 - (((255 - Math.min(254, sR)) << 8) / (dR + 1)));
+                        sG = clamp(255 - (((255 - Math.min(254, sG)) << 8) / (dG + 1)));
+                        sB = clamp(255 - (((255 - Math.min(254, sB)) << 8) / (dB + 1)));
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1019,6 +1437,60 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR != 0) {
+                            sR = Math.max(255 - (((255 - dR) << 8) / sR), 0);
+                        }
+                        if (sG != 0) {
+                            sG = Math.max(255 - (((255 - dG) << 8) / sG), 0);
+                        }
+                        if (sB != 0) {
+                            sB = Math.max(255 - (((255 - dB) << 8) / sB), 0);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR != 0) {
+                            sR = Math.max(255 - (((255 - dR) << 8) / sR), 0);
+                        }
+                        if (sG != 0) {
+                            sG = Math.max(255 - (((255 - dG) << 8) / sG), 0);
+                        }
+                        if (sB != 0) {
+                            sB = Math.max(255 - (((255 - dB) << 8) / sB), 0);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1106,11 +1578,53 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
-            };
-        }
-    };
 
-    /**
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.max(0, sR + dR - 255);
+                        sG = Math.max(0, sG + dG - 255);
+                        sB = Math.max(0, sB + dB - 255);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = Math.max(0, sR + dR - 255);
+                        sG = Math.max(0, sG + dG - 255);
+                        sB = Math.max(0, sB + dB - 255);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
+            };
+        }
+    };
+
+    /**
      * For each channel, {@code Dodge} increases the brightness of the
      * destination relative to the brightness of the source.
      */
@@ -1193,6 +1707,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp((sR << 8) / (256 - dR));
+                        sG = clamp((sG << 8) / (256 - dG));
+                        sB = clamp((sB << 8) / (256 - dB));
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp((sR << 8) / (256 - dR));
+                        sG = clamp((sG << 8) / (256 - dG));
+                        sB = clamp((sB << 8) / (256 - dB));
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1328,6 +1884,72 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR != 255) {
+                            sR = Math.min((dR << 8) / (255 - sR), 255);
+                        } else {
+                            sR = dR == 0 ? 0 : 255;
+                        }
+                        if (sG != 255) {
+                            sG = Math.min((dG << 8) / (255 - sG), 255);
+                        } else {
+                            sG = dG == 0 ? 0 : 255;
+                        }
+                        if (sB != 255) {
+                            sB = Math.min((dB << 8) / (255 - sB), 255);
+                        } else {
+                            sB = dB == 0 ? 0 : 255;
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR != 255) {
+                            sR = Math.min((dR << 8) / (255 - sR), 255);
+                        } else {
+                            sR = dR == 0 ? 0 : 255;
+                        }
+                        if (sG != 255) {
+                            sG = Math.min((dG << 8) / (255 - sG), 255);
+                        } else {
+                            sG = dG == 0 ? 0 : 255;
+                        }
+                        if (sB != 255) {
+                            sB = Math.min((dB << 8) / (255 - sB), 255);
+                        } else {
+                            sB = dB == 0 ? 0 : 255;
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1381,6 +2003,49 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        int t;
+
+                        if (dR < 128) {
+                            t = dR * sR + 0x80;
+                            sR = 2 * (((t >> 8) + t) >> 8);
+                        } else {
+                            t = (255 - dR) * (255 - sR) + 0x80;
+                            sR = 2 * (255 - (((t >> 8) + t) >> 8));
+                        }
+
+                        if (dG < 128) {
+                            t = dG * sG + 0x80;
+                            sG = 2 * (((t >> 8) + t) >> 8);
+                        } else {
+                            t = (255 - dG) * (255 - sG) + 0x80;
+                            sG = 2 * (255 - (((t >> 8) + t) >> 8));
+                        }
+
+                        if (dB < 128) {
+                            t = dB * sB + 0x80;
+                            sB = 2 * (((t >> 8) + t) >> 8);
+                        } else {
+                            t = (255 - dB) * (255 - sB) + 0x80;
+                            sB = 2 * (255 - (((t >> 8) + t) >> 8));
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1525,6 +2190,76 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR < 128) {
+                            sR = 2 * mul(sR, dR);
+                        } else {
+                            sR = 255 - 2 * mul(255 - sR, 255 - dR);
+                        }
+
+                        if (sG < 128) {
+                            sG = 2 * mul(sG, dG);
+                        } else {
+                            sG = 255 - 2 * mul(255 - sG, 255 - dG);
+                        }
+
+                        if (sB < 128) {
+                            sB = 2 * mul(sB, dB);
+                        } else {
+                            sB = 255 - 2 * mul(255 - sB, 255 - dB);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR < 128) {
+                            sR = 2 * mul(sR, dR);
+                        } else {
+                            sR = 255 - 2 * mul(255 - sR, 255 - dR);
+                        }
+
+                        if (sG < 128) {
+                            sG = 2 * mul(sG, dG);
+                        } else {
+                            sG = 255 - 2 * mul(255 - sG, 255 - dG);
+                        }
+
+                        if (sB < 128) {
+                            sB = 2 * mul(sB, dB);
+                        } else {
+                            sB = 255 - 2 * mul(255 - sB, 255 - dB);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1624,6 +2359,53 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        int t = mul(sR, dR);
+                        sR = t + mul(dR, 255 - mul(255 - dR, 255 - sR) - t);
+                        t = mul(sG, dG);
+                        sG = t + mul(dG, 255 - mul(255 - dG, 255 - sG) - t);
+                        t = mul(sB, dB);
+                        sB = t + mul(dB, 255 - mul(255 - dB, 255 - sB) - t);
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        int t = mul(sR, dR);
+                        sR = t + mul(dR, 255 - mul(255 - dR, 255 - sR) - t);
+                        t = mul(sG, dG);
+                        sG = t + mul(dG, 255 - mul(255 - dG, 255 - sG) - t);
+                        t = mul(sB, dB);
+                        sB = t + mul(dB, 255 - mul(255 - dB, 255 - sB) - t);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1712,6 +2494,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp(sR < 128 ? 2 * sR + dR - 255 : (2 * (sR - 128)) + dR);
+                        sG = clamp(sG < 128 ? 2 * sG + dG - 255 : (2 * (sG - 128)) + dG);
+                        sB = clamp(sB < 128 ? 2 * sB + dB - 255 : (2 * (sB - 128)) + dB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = clamp(sR < 128 ? 2 * sR + dR - 255 : (2 * (sR - 128)) + dR);
+                        sG = clamp(sG < 128 ? 2 * sG + dG - 255 : (2 * (sG - 128)) + dG);
+                        sB = clamp(sB < 128 ? 2 * sB + dB - 255 : (2 * (sB - 128)) + dB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1801,6 +2625,48 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[i + 2] = fmix(sA, sB) + fmix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composePacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > 127 ? Math.max(2 * (sR - 128), dR) : Math.min(2 * sR, dR);
+                        sG = sG > 127 ? Math.max(2 * (sG - 128), dG) : Math.min(2 * sG, dG);
+                        sB = sB > 127 ? Math.max(2 * (sB - 128), dB) : Math.min(2 * sB, dB);
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = fmix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sR = sR > 127 ? Math.max(2 * (sR - 128), dR) : Math.min(2 * sR, dR);
+                        sG = sG > 127 ? Math.max(2 * (sG - 128), dG) : Math.min(2 * sG, dG);
+                        sB = sB > 127 ? Math.max(2 * (sB - 128), dB) : Math.min(2 * sB, dB);
+
+                        dst[i] = pack(d >>> 24,
+                                fmix(sA, sR) + fmix(dA, dR),
+                                fmix(sA, sG) + fmix(dA, dG),
+                                fmix(sA, sB) + fmix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1870,6 +2736,65 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR < 128) {
+                            sR = 2 * sR;
+                            if (sR != 0) {
+                                sR = Math.max(0, 255 - (((255 - dR) << 8) / sR));
+                            }
+                        } else {
+                            sR = 2 * (sR - 128);
+                            if (sR != 255) {
+                                sR = Math.min((dR << 8) / (255 - sR), 255);
+                            } else {
+                                sR = dR == 0 ? 0 : 255;
+                            }
+                        }
+
+                        if (sG < 128) {
+                            sG = 2 * sG;
+                            if (sG != 0) {
+                                sG = Math.max(0, 255 - (((255 - dG) << 8) / sG));
+                            }
+                        } else {
+                            sG = 2 * (sG - 128);
+                            if (sG != 255) {
+                                sG = Math.min((dG << 8) / (255 - sG), 255);
+                            } else {
+                                sG = dG == 0 ? 0 : 255;
+                            }
+                        }
+
+                        if (sB < 128) {
+                            sB = 2 * sB;
+                            if (sB != 0) {
+                                sB = Math.max(0, 255 - (((255 - dB) << 8) / sB));
+                            }
+                        } else {
+                            sB = 2 * (sB - 128);
+                            if (sB != 255) {
+                                sB = Math.min((dB << 8) / (255 - sB), 255);
+                            } else {
+                                sB = dB == 0 ? 0 : 255;
+                            }
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1943,6 +2868,68 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR < 128) {
+                            sR = 2 * sR;
+                            if (sR != 0) {
+                                sR = Math.max(0, 255 - (((255 - dR) << 8) / sR));
+                            }
+                        } else {
+                            sR = 2 * (sR - 128);
+                            if (sR != 255) {
+                                sR = Math.min((dR << 8) / (255 - sR), 255);
+                            } else {
+                                sR = dR == 0 ? 0 : 255;
+                            }
+                        }
+                        sR = sR < 128 ? 0 : 255;
+
+                        if (sG < 128) {
+                            sG = 2 * sG;
+                            if (sG != 0) {
+                                sG = Math.max(0, 255 - (((255 - dG) << 8) / sG));
+                            }
+                        } else {
+                            sG = 2 * (sG - 128);
+                            if (sG != 255) {
+                                sG = Math.min((dG << 8) / (255 - sG), 255);
+                            } else {
+                                sG = dG == 0 ? 0 : 255;
+                            }
+                        }
+                        sG = sG < 128 ? 0 : 255;
+
+                        if (sB < 128) {
+                            sB = 2 * sB;
+                            if (sB != 0) {
+                                sB = Math.max(0, 255 - (((255 - dB) << 8) / sB));
+                            }
+                        } else {
+                            sB = 2 * (sB - 128);
+                            if (sB != 255) {
+                                sB = Math.min((dB << 8) / (255 - sB), 255);
+                            } else {
+                                sB = dB == 0 ? 0 : 255;
+                            }
+                        }
+                        sB = sB < 128 ? 0 : 255;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -1986,6 +2973,39 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (sR != 255) {
+                            sR = Math.min(255, dR * dR / (255 - sR));
+                        } else {
+                            sR = Math.min(255, dR * dR);
+                        }
+                        if (sG != 255) {
+                            sG = Math.min(255, dG * dG / (255 - sG));
+                        } else {
+                            sG = Math.min(255, dG * dG);
+                        }
+                        if (sB != 255) {
+                            sB = Math.min(255, dB * dB / (255 - sB));
+                        } else {
+                            sB = Math.min(255, dB * dB);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -2028,6 +3048,39 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        if (dR != 255) {
+                            sR = Math.min(255, sR * sR / (255 - dR));
+                        } else {
+                            sR = Math.min(255, sR * sR);
+                        }
+                        if (dG != 255) {
+                            sG = Math.min(255, sG * sG / (255 - dG));
+                        } else {
+                            sG = Math.min(255, sG * sG);
+                        }
+                        if (dB != 255) {
+                            sB = Math.min(255, sB * sB / (255 - dB));
+                        } else {
+                            sB = Math.min(255, sB * sB);
+                        }
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -2065,6 +3118,34 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    float[] sHSB = null;
+                    float[] dHSB = null;
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sHSB = RGBtoHSB(sR, sG, sB, sHSB);
+                        dHSB = RGBtoHSB(dR, dG, dB, dHSB);
+
+                        int rgb = HSBtoRGB(sHSB[0], dHSB[1], dHSB[2]);
+
+                        sR = (rgb >>> 16) & 0xff;
+                        sG = (rgb >>> 8) & 0xff;
+                        sB = rgb & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -2102,6 +3183,34 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    float[] sHSB = null;
+                    float[] dHSB = null;
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sHSB = RGBtoHSB(sR, sG, sB, sHSB);
+                        dHSB = RGBtoHSB(dR, dG, dB, dHSB);
+
+                        int rgb = HSBtoRGB(dHSB[0], sHSB[1], dHSB[2]);
+
+                        sR = (rgb >>> 16) & 0xff;
+                        sG = (rgb >>> 8) & 0xff;
+                        sB = rgb & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -2139,6 +3248,34 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    float[] sHSB = null;
+                    float[] dHSB = null;
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sHSB = RGBtoHSB(sR, sG, sB, sHSB);
+                        dHSB = RGBtoHSB(dR, dG, dB, dHSB);
+
+                        int rgb = HSBtoRGB(sHSB[0], sHSB[1], dHSB[2]);
+
+                        sR = (rgb >>> 16) & 0xff;
+                        sG = (rgb >>> 8) & 0xff;
+                        sB = rgb & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -2176,6 +3313,34 @@ public abstract class BlendMode extends AbstractARGBComposite {
                         dst[j + 2] = mix(sA, sB) + mix(dA, dB);
                     }
                 }
+
+                @Override
+                protected void composeFPacked(int[] src, int[] dst, final int aFactor) {
+                    float[] sHSB = null;
+                    float[] dHSB = null;
+                    for (int i = 0; i < src.length; ++i) {
+                        final int s = src[i], d = dst[i];
+                        int sA = mix(aFactor, s >>> 24);
+                        int dA = 255 - sA;
+
+                        int sR = (s >>> 16) & 0xff, sG = (s >>> 8) & 0xff, sB = s & 0xff;
+                        int dR = (d >>> 16) & 0xff, dG = (d >>> 8) & 0xff, dB = d & 0xff;
+
+                        sHSB = RGBtoHSB(sR, sG, sB, sHSB);
+                        dHSB = RGBtoHSB(dR, dG, dB, dHSB);
+
+                        int rgb = HSBtoRGB(dHSB[0], dHSB[1], sHSB[2]);
+
+                        sR = (rgb >>> 16) & 0xff;
+                        sG = (rgb >>> 8) & 0xff;
+                        sB = rgb & 0xff;
+
+                        dst[i] = pack(d >>> 24,
+                                mix(sA, sR) + mix(dA, dR),
+                                mix(sA, sG) + mix(dA, dG),
+                                mix(sA, sB) + mix(dA, dB));
+                    }
+                }
             };
         }
     };
@@ -242,6 +242,25 @@ public abstract class AbstractConvolver extends AbstractImagewiseFilter {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * For a convolution, this is the sum of the vertical radii of the
+     * kernels, unless the edge handling mode is {@link EdgeHandling#WRAP}.
+     */
+    @Override
+    protected int getHaloRows() {
+        if (getEdgeHandling() == EdgeHandling.WRAP) {
+            return -1;
+        }
+        int halo = 0;
+        for (Kernel k : getKernels()) {
+            halo += k.getHeight() / 2;
+        }
+        return halo;
+    }
+
     @Override
     protected float workFactor() {
         if (matrix == null) {
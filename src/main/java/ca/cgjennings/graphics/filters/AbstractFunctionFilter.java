@@ -70,6 +70,14 @@ public abstract class AbstractFunctionFilter extends AbstractPixelwiseFilter imp
             v = Math.max(0, Math.min(255, v));
             table[i] = v;
         }
+        tableIsValid = true;
+    }
+
+    @Override
+    void prepareToFilter() {
+        if (!tableIsValid) {
+            validateTable();
+        }
     }
 
     @Override
@@ -322,7 +322,7 @@ public abstract class AbstractImageFilter implements BufferedImageOp {
                 if (i < remainder) {
                     ++rows;
                 }
-                units[i] = new RowGetterUnit(image, pixels, y0, rows);
+                units[i] = new RowGetterUnit(image, pixels, x, y0, width, rows, (y0 - y) * width);
                 y0 += rows;
             }
             sj.runUnchecked(units);
@@ -349,7 +349,7 @@ public abstract class AbstractImageFilter implements BufferedImageOp {
         final int type = image.getType();
         if (type == BufferedImage.TYPE_INT_ARGB) {
             return (int[]) image.getRaster().getDataElements(x, y, width, height, pixels);
-        } else if (type == BufferedImage.TYPE_INT_ARGB) {
+        } else if (type == BufferedImage.TYPE_INT_RGB) {
             pixels = (int[]) image.getRaster().getDataElements(x, y, width, height, pixels);
             int count = width * height;
             for (int i = 0; i < count; ++i) {
@@ -395,7 +395,7 @@ public abstract class AbstractImageFilter implements BufferedImageOp {
                 if (i < remainder) {
                     ++rows;
                 }
-                units[i] = new RowSetterUnit(pixels, image, y0, rows);
+                units[i] = new RowSetterUnit(pixels, (y0 - y) * width, image, x, y0, width, rows);
                 y0 += rows;
             }
             sj.runUnchecked(units);
@@ -450,99 +450,95 @@ public abstract class AbstractImageFilter implements BufferedImageOp {
     }
 
     /**
-     * Work unit that copies rows into an array.
+     * Work unit that copies rows of a subimage into an array.
      */
     private static class RowGetterUnit implements Runnable {
 
-        public RowGetterUnit(BufferedImage source, int[] destination, int y0, int rowCount) {
+        public RowGetterUnit(BufferedImage source, int[] destination, int x, int y0, int width, int rowCount, int offset) {
+            this.x = x;
             this.y0 = y0;
             this.y1 = y0 + rowCount;
+            this.width = width;
+            this.offset = offset;
             this.source = source;
             this.dest = destination;
         }
         private final BufferedImage source;
         private final int[] dest;
-        private final int y0;
-        private int y1;
+        private final int x, y0, y1, width, offset;
 
         @Override
         public void run() {
             final int y0 = this.y0;
             final int y1 = this.y1;
+            final int x = this.x;
+            final int w = width;
             final BufferedImage src = source;
-            final int w = src.getWidth();
             final int[] pixelRow = new int[w];
             final int type = src.getType();
 
             // destination index
-            int dx = y0 * w;
+            int dx = offset;
             if (type == BufferedImage.TYPE_INT_ARGB) {
                 WritableRaster sourceRaster = src.getRaster();
-                for (int y = y0; y < y1; ++y) {
-                    sourceRaster.getDataElements(0, y, w, 1, pixelRow);
-                    for (int x = 0; x < w; ++x) {
-                        dest[dx++] = pixelRow[x];
-                    }
+                for (int y = y0; y < y1; ++y, dx += w) {
+                    sourceRaster.getDataElements(x, y, w, 1, pixelRow);
+                    System.arraycopy(pixelRow, 0, dest, dx, w);
                 }
             } else if (type == BufferedImage.TYPE_INT_RGB) {
                 WritableRaster sourceRaster = src.getRaster();
                 for (int y = y0; y < y1; ++y) {
-                    sourceRaster.getDataElements(0, y, w, 1, pixelRow);
-                    for (int x = 0; x < w; ++x) {
-                        dest[dx++] = pixelRow[x] | 0xff000000;
+                    sourceRaster.getDataElements(x, y, w, 1, pixelRow);
+                    for (int i = 0; i < w; ++i) {
+                        dest[dx++] = pixelRow[i] | 0xff000000;
                     }
                 }
             } else {
-                for (int y = y0; y < y1; ++y) {
-                    src.getRGB(0, y, w, 1, pixelRow, 0, w);
-                    for (int x = 0; x < w; ++x) {
-                        dest[dx++] = pixelRow[x];
-                    }
+                for (int y = y0; y < y1; ++y, dx += w) {
+                    src.getRGB(x, y, w, 1, dest, dx, w);
                 }
             }
         }
     }
 
     /**
-     * Work unit that copies rows from an array to an image.
+     * Work unit that copies rows from an array to a subimage.
      */
     private static class RowSetterUnit implements Runnable {
 
-        public RowSetterUnit(int[] source, BufferedImage destination, int y0, int rowCount) {
+        public RowSetterUnit(int[] source, int offset, BufferedImage destination, int x, int y0, int width, int rowCount) {
+            this.x = x;
             this.y0 = y0;
             this.y1 = y0 + rowCount;
+            this.width = width;
+            this.offset = offset;
             this.source = source;
             this.dest = destination;
         }
         private final BufferedImage dest;
         private final int[] source;
-        private final int y0;
-        private int y1;
+        private final int x, y0, y1, width, offset;
 
         @Override
         public void run() {
             final int y0 = this.y0;
             final int y1 = this.y1;
+            final int x = this.x;
+            final int w = width;
             final BufferedImage dest = this.dest;
-            final int w = dest.getWidth();
-            final int[] pixelRow = new int[w];
             final int type = dest.getType();
-            int si = y0 * w;
+            int si = offset;
             try {
                 if (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB) {
+                    final int[] pixelRow = new int[w];
                     WritableRaster destRaster = dest.getRaster();
-                    for (int y = y0; y < y1; ++y) {
-                        for (int x = 0; x < w; ++x) {
-                            pixelRow[x] = source[si++];
-                        }
-                        destRaster.setDataElements(0, y, w, 1, pixelRow);
+                    for (int y = y0; y < y1; ++y, si += w) {
+                        System.arraycopy(source, si, pixelRow, 0, w);
+                        destRaster.setDataElements(x, y, w, 1, pixelRow);
                     }
                 } else {
-                    for (int y = y0; y < y1; ++y) {
-                        for (int x = 0; x < w; ++x) {
-                            pixelRow[x] = source[si++];
-                        }
-                        dest.setRGB(0, y, w, 1, pixelRow, 0, w);
+                    for (int y = y0; y < y1; ++y, si += w) {
+                        dest.setRGB(x, y, w, 1, source, si, w);
                     }
                 }
             } catch (Throwable t) {
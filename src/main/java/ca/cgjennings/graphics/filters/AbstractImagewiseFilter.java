@@ -29,7 +29,9 @@ public abstract class AbstractImagewiseFilter extends AbstractImageFilter {
      *
      * <p>
      * This implementation will call {@link #filterPixels} to perform the actual
-     * filtering.
+     * filtering. If the filter reports a limited {@linkplain #getHaloRows()
+     * halo}, large images are filtered in horizontal strips so that only one
+     * strip of pixel data needs to be held in memory at a time.
      *
      * @param source the source image
      * @param destination the destination image (may be {@code null})
@@ -44,13 +46,68 @@ public abstract class AbstractImagewiseFilter extends AbstractImageFilter {
             destination = createCompatibleDestImage(source, null);
         }
 
-        final int[] srcPixels = getARGB(source, null);
-        final int[] dstPixels = filter(srcPixels, null, width, height);
-        setARGB(destination, dstPixels);
+        final int halo = getHaloRows();
+        final int strip = Math.max(1, Math.max(STRIP_SIZE / width, 8 * halo));
+        if (halo < 0 || strip + 2 * halo >= height
+                || source.getRaster().getDataBuffer() == destination.getRaster().getDataBuffer()) {
+            final int[] srcPixels = getARGB(source, null);
+            final int[] dstPixels = filter(srcPixels, null, width, height);
+            setARGB(destination, dstPixels);
+            return destination;
+        }
 
+        // each strip is read along with the halo rows above and below it;
+        // the halo rows are filtered too, but only the strip is kept
+        int[] in = null, out = null;
+        for (int y0 = 0; y0 < height; y0 += strip) {
+            final int y1 = Math.min(height, y0 + strip);
+            final int top = Math.max(0, y0 - halo);
+            final int rows = Math.min(height, y1 + halo) - top;
+            if (in == null || in.length != rows * width) {
+                in = new int[rows * width];
+                out = new int[rows * width];
+            }
+            getARGB(source, 0, top, width, rows, in);
+            final int[] result = filter(in, out, width, rows);
+            if (y0 > top) {
+                System.arraycopy(result, (y0 - top) * width, result, 0, (y1 - y0) * width);
+            }
+            setARGB(destination, 0, y0, width, y1 - y0, result);
+        }
         return destination;
     }
 
+    /**
+     * The approximate number of pixels in each strip when an image is
+     * filtered in strips.
+     */
+    private static final int STRIP_SIZE = 256 * 1_024;
+
+    /**
+     * Returns the number of rows above and below a given row that the filter
+     * reads in order to compute that row, or -1 if the filter may need to
+     * read any row of the image. The base class returns -1.
+     *
+     * <p>
+     * A filter that returns a value of 0 or more may be applied to a large
+     * image in horizontal strips. Each strip is passed to
+     * {@link #filter(int[], int[], int, int)} as if it were a complete image,
+     * together with the specified number of extra rows from above and below
+     * it. Only the rows of the strip itself are kept, so the result must be
+     * the same as filtering the entire image, even though rows within the
+     * halo distance of the edge of the strip are treated as if they were near
+     * the edge of the image. Filters that wrap around the image edge, or that
+     * depend on the height of the image or the absolute position of a row,
+     * must return -1.
+     *
+     * @return the number of extra rows needed above and below the rows to
+     * filter, or -1
+     * @since 3.4
+     */
+    protected int getHaloRows() {
+        return -1;
+    }
+
     /**
      * Applies the filter to ARGB pixel data stored in an array. This method can
      * be used during the internal processing of other filters.
@@ -26,6 +26,7 @@ public abstract class AbstractPixelwiseFilter extends AbstractImageFilter {
 
     @Override
     public BufferedImage filter(BufferedImage src, BufferedImage dest) {
+        prepareToFilter();
         if ((src.getWidth() * src.getHeight()) * workFactor() >= Tuning.PER_ROW) {
             return filterParallel(src, dest);
         }
@@ -105,6 +106,7 @@ public abstract class AbstractPixelwiseFilter extends AbstractImageFilter {
      * overwrite these values
      */
     public void filter(int[] argb) {
+        prepareToFilter();
         if (argb.length * workFactor() >= Tuning.PER_ROW) {
             SplitJoin sj = SplitJoin.getInstance();
             final int len = argb.length;
@@ -160,6 +162,16 @@ public abstract class AbstractPixelwiseFilter extends AbstractImageFilter {
      */
     public abstract void filterPixels(int[] argb, int start, int end);
 
+    /**
+     * Called before any pixels are passed to {@link #filterPixels} by
+     * {@link #filter}, {@link CompoundPixelwiseFilter}, or
+     * {@link FilterPipeline}. Filters in this package that build lookup tables
+     * lazily override this to update their tables once, before the pixels are
+     * filtered on multiple threads.
+     */
+    void prepareToFilter() {
+    }
+
     /**
      * Returns the result of applying the filter to a single ARGB pixel value.
      *
@@ -1,7 +1,5 @@
 package ca.cgjennings.graphics.filters;
 
-import java.awt.image.BufferedImage;
-
 /**
  * A filter that increases the overall opacity of an image. The effect is
  * similar to painting the source image overtop of itself a number of times
@@ -62,17 +60,17 @@ public final class AlphaStrengthenFilter extends AbstractPixelwiseFilter {
     }
 
     @Override
-    public BufferedImage filter(BufferedImage src, BufferedImage dest) {
+    void prepareToFilter() {
         if (tableIsDirty) {
             updateTable();
         }
-        return super.filter(src, dest);
     }
 
     @Override
     public void filterPixels(int[] argb, int start, int end) {
         for (int i = start; i < end; ++i) {
-            argb[i] = (table[argb[i] >>> 24] << 24) | (argb[i] & 0xffffff);
+            final int p = argb[i];
+            argb[i] = (table[p >>> 24] << 24) | (p & 0xffffff);
         }
     }
 
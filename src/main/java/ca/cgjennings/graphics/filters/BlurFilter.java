@@ -218,26 +218,39 @@ public class BlurFilter extends AbstractImageFilter {
             dst = createCompatibleDestImage(src, null);
         }
 
+        getARGB(src, in);
+        filter(in, out, width, height, src.getTransparency() == Transparency.OPAQUE);
+        setARGB(dst, in);
+        return dst;
+    }
+
+    /**
+     * Blurs ARGB pixel data using the current filter settings. The blurred
+     * result replaces the contents of {@code in}.
+     *
+     * @param in the pixel data to blur
+     * @param temp a temporary buffer of the same size
+     * @param width the image width
+     * @param height the image height
+     * @param opaque {@code true} if the pixels are known to be opaque, so
+     * that premultiplication can be skipped
+     */
+    void filter(int[] in, int[] temp, int width, int height, boolean opaque) {
         // update the lookup tables if they are out of date
         updateTables();
 
-        getARGB(src, in);
-
-        if (premultiply && src.getTransparency() != Transparency.OPAQUE) {
+        if (premultiply && !opaque) {
             premultiply(in);
         }
 
         for (int i = 0; i < iterations; ++i) {
-            blurTransp(in, out, width, height, hRad, hLut, false, 0);
-            blurTransp(out, in, height, width, vRad, vLut, false, 0);
+            blurTransp(in, temp, width, height, hRad, hLut, false, 0);
+            blurTransp(temp, in, height, width, vRad, vLut, false, 0);
         }
 
-        if (premultiply && src.getTransparency() != Transparency.OPAQUE) {
+        if (premultiply && !opaque) {
             unpremultiply(in);
         }
-
-        setARGB(dst, in);
-        return dst;
     }
 
     private void updateTables() {
@@ -0,0 +1,197 @@
+package ca.cgjennings.graphics.filters;
+
+import ca.cgjennings.algo.SplitJoin;
+
+/**
+ * Approximates a Gaussian blur using repeated extended box filters. An
+ * extended box filter is a box filter whose two end taps have a fractional
+ * weight; by choosing the weight correctly, the variance of each box matches
+ * the variance of the target Gaussian exactly, rather than being rounded to
+ * the nearest box size. Each box is computed with running sums, so the cost
+ * per pixel does not depend on the blur radius.
+ *
+ * <p>
+ * Each pass blurs the rows of the image and writes the result transposed, so
+ * that a horizontal pass followed by a second pass completes one box in both
+ * directions. Passes are run in parallel over blocks of rows.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class BoxBlur {
+
+    private BoxBlur() {
+    }
+
+    /**
+     * The number of boxes used to approximate a Gaussian.
+     */
+    private static final int BOXES = 3;
+
+    /**
+     * Fixed point scale for box weights.
+     */
+    private static final int SHIFT = 16;
+
+    /**
+     * Blurs ARGB pixel data with an approximate Gaussian. The pixels are
+     * blurred back and forth between the two buffers; the buffer that holds
+     * the result is returned.
+     *
+     * @param in the pixels to blur; overwritten
+     * @param temp a buffer of the same size; overwritten
+     * @param width the image width
+     * @param height the image height
+     * @param sigma the standard deviation of the Gaussian
+     * @param edges how to treat pixels beyond the image edge
+     * @return the buffer containing the blurred pixels ({@code in} or
+     * {@code temp})
+     */
+    static int[] gaussian(int[] in, int[] temp, int width, int height, double sigma, EdgeHandling edges) {
+        // each box has one third of the variance of the Gaussian
+        final double variance = sigma * sigma / BOXES;
+        final int r = radius(variance);
+        final double alpha = (2 * r + 1) * (r * (r + 1) - 3d * variance)
+                / (6d * (variance - (r + 1) * (r + 1)));
+        final double size = 2 * r + 1 + 2d * alpha;
+        final int inner = (int) Math.round((1 << SHIFT) / size);
+        // derive the end tap weight from the inner weight so that the
+        // weights sum to exactly 1 and solid regions keep their value
+        final int outer = ((1 << SHIFT) - (2 * r + 1) * inner) / 2;
+
+        for (int i = 0; i < BOXES; ++i) {
+            pass(in, temp, width, height, r, inner, outer, edges);
+            pass(temp, in, height, width, r, inner, outer, edges);
+        }
+        return in;
+    }
+
+    /**
+     * Returns the distance from a pixel to the farthest pixel that can affect
+     * its blurred value.
+     *
+     * @param sigma the standard deviation of the Gaussian
+     * @return the maximum distance, in pixels, along either axis
+     */
+    static int reach(double sigma) {
+        return BOXES * (radius(sigma * sigma / BOXES) + 1);
+    }
+
+    /**
+     * Returns the radius of the largest whole box whose variance does not
+     * exceed the variance of one extended box.
+     */
+    private static int radius(double variance) {
+        return (int) Math.floor(Math.sqrt(12d * variance + 1d) / 2d - 0.5d);
+    }
+
+    /**
+     * Performs one extended box pass over the rows of {@code in}, writing the
+     * result to {@code out} transposed.
+     */
+    private static void pass(final int[] in, final int[] out, final int width, final int height, final int r, final int inner, final int outer, final EdgeHandling edges) {
+        if ((long) width * height > Tuning.PER_IMAGE) {
+            SplitJoin sj = SplitJoin.getInstance();
+            final int n = Math.min(height, sj.getIdealSplitCount());
+            final int rowsPerTask = height / n;
+            final int remainder = height - n * rowsPerTask;
+            Runnable[] units = new Runnable[n];
+            int y = 0;
+            for (int i = 0; i < n; ++i) {
+                int rows = rowsPerTask;
+                if (i < remainder) {
+                    ++rows;
+                }
+                final int y0 = y;
+                final int y1 = y + rows;
+                units[i] = () -> passBlock(in, out, width, height, y0, y1, r, inner, outer, edges);
+                y += rows;
+            }
+            sj.runUnchecked(units);
+        } else {
+            passBlock(in, out, width, height, 0, height, r, inner, outer, edges);
+        }
+    }
+
+    private static void passBlock(int[] in, int[] out, int width, int height, int y0, int y1, int r, int inner, int outer, EdgeHandling edges) {
+        // each row is copied into a buffer that is extended by r+1 pixels on
+        // each side, so that the sums never need to check for the edge
+        final int pad = r + 1;
+        final int[] row = new int[width + 2 * pad + 1];
+        final int half = 1 << (SHIFT - 1);
+
+        for (int y = y0; y < y1; ++y) {
+            extendRow(in, y * width, width, row, pad, edges);
+
+            int a = 0, red = 0, g = 0, b = 0;
+            for (int i = 1; i <= 2 * r + 1; ++i) {
+                final int p = row[i];
+                a += p >>> 24;
+                red += (p >> 16) & 0xff;
+                g += (p >> 8) & 0xff;
+                b += p & 0xff;
+            }
+
+            for (int x = 0, outOff = y; x < width; ++x, outOff += height) {
+                // the end taps are at x and x + 2r + 2; the window is between
+                final int lo = row[x];
+                final int hi = row[x + 2 * r + 2];
+                final int oa = (lo >>> 24) + (hi >>> 24);
+                final int or = ((lo >> 16) & 0xff) + ((hi >> 16) & 0xff);
+                final int og = ((lo >> 8) & 0xff) + ((hi >> 8) & 0xff);
+                final int ob = (lo & 0xff) + (hi & 0xff);
+                out[outOff] = (Math.min(255, (a * inner + oa * outer + half) >> SHIFT) << 24)
+                        | (Math.min(255, (red * inner + or * outer + half) >> SHIFT) << 16)
+                        | (Math.min(255, (g * inner + og * outer + half) >> SHIFT) << 8)
+                        | Math.min(255, (b * inner + ob * outer + half) >> SHIFT);
+
+                // slide the window: hi enters, row[x + 1] leaves
+                final int leaving = row[x + 1];
+                a += (hi >>> 24) - (leaving >>> 24);
+                red += ((hi >> 16) & 0xff) - ((leaving >> 16) & 0xff);
+                g += ((hi >> 8) & 0xff) - ((leaving >> 8) & 0xff);
+                b += (hi & 0xff) - (leaving & 0xff);
+            }
+        }
+    }
+
+    /**
+     * Copies a row of pixels into {@code row} starting at index {@code pad},
+     * filling the {@code pad} elements before the row and the elements after
+     * it according to the edge handling mode.
+     */
+    private static void extendRow(int[] in, int off, int width, int[] row, int pad, EdgeHandling edges) {
+        System.arraycopy(in, off, row, pad, width);
+        final int end = pad + width;
+        switch (edges) {
+            case ZERO:
+                for (int i = 0; i < pad; ++i) {
+                    row[i] = 0;
+                }
+                for (int i = end; i < row.length; ++i) {
+                    row[i] = 0;
+                }
+                break;
+            case REPEAT:
+                final int first = in[off];
+                final int last = in[off + width - 1];
+                for (int i = 0; i < pad; ++i) {
+                    row[i] = first;
+                }
+                for (int i = end; i < row.length; ++i) {
+                    row[i] = last;
+                }
+                break;
+            case WRAP:
+                for (int i = 0; i < pad; ++i) {
+                    row[i] = in[off + Math.floorMod(i - pad, width)];
+                }
+                for (int i = end; i < row.length; ++i) {
+                    row[i] = in[off + Math.floorMod(i - pad, width)];
+                }
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+}
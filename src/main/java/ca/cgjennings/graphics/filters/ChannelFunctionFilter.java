@@ -1,7 +1,6 @@
 package ca.cgjennings.graphics.filters;
 
 import ca.cgjennings.math.Fn;
-import java.awt.image.BufferedImage;
 
 /**
  * A image filter that applies a function to each channel. The function takes a
@@ -99,11 +98,10 @@ public class ChannelFunctionFilter extends AbstractPixelwiseFilter {
     }
 
     @Override
-    public BufferedImage filter(BufferedImage src, BufferedImage dest) {
+    void prepareToFilter() {
         if (!valid) {
             validate();
         }
-        return super.filter(src, dest);
     }
 
     private void validate() {
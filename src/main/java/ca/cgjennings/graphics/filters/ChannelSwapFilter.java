@@ -239,169 +239,91 @@ public class ChannelSwapFilter extends AbstractPixelwiseFilter {
 
     @Override
     public void filterPixels(int[] pixels, int start, int end) {
-        boolean calcGrey = aSrc >= GREY || bSrc >= GREY || gSrc >= GREY;
-        int sGrey = 0;
+        // Each destination channel is computed as
+        //   ((((source >>> shift) & ~grey) | (sGrey & grey)) & mask ^ xor) | fill
+        // where the terms are chosen in advance from the channel source;
+        // this keeps the loop free of branches so that the JIT can vectorize it
+        final int[] a = channelTerms(aSrc), r = channelTerms(rSrc), g = channelTerms(gSrc), b = channelTerms(bSrc);
+        final boolean calcGrey = (a[1] | r[1] | g[1] | b[1]) != 0;
 
-        for (int i = start; i < end; ++i) {
-            final int argb = pixels[i];
+        final int aShift = a[0], aGrey = a[1], aMask = a[2], aXor = a[3], aFill = a[4];
+        final int rShift = r[0], rGrey = r[1], rMask = r[2], rXor = r[3], rFill = r[4];
+        final int gShift = g[0], gGrey = g[1], gMask = g[2], gXor = g[3], gFill = g[4];
+        final int bShift = b[0], bGrey = b[1], bMask = b[2], bXor = b[3], bFill = b[4];
 
-            final int sA = (argb >>> 24);
-            final int sR = (argb >>> 16) & 0xff;
-            final int sG = (argb >>> 8) & 0xff;
-            final int sB = argb & 0xff;
-            if (calcGrey) {
-                sGrey = (77 * sR + 150 * sG + 28 * sB) / 255;
+        if (calcGrey) {
+            for (int i = start; i < end; ++i) {
+                final int argb = pixels[i];
+                // (x * 0x8081) >>> 23 == x / 255 for the range of the weighted sum
+                final int sGrey = ((77 * ((argb >>> 16) & 0xff)
+                        + 150 * ((argb >>> 8) & 0xff)
+                        + 28 * (argb & 0xff)) * 0x8081) >>> 23;
+                pixels[i] = (((((argb >>> aShift) & ~aGrey) | (sGrey & aGrey)) & aMask ^ aXor | aFill) << 24)
+                        | (((((argb >>> rShift) & ~rGrey) | (sGrey & rGrey)) & rMask ^ rXor | rFill) << 16)
+                        | (((((argb >>> gShift) & ~gGrey) | (sGrey & gGrey)) & gMask ^ gXor | gFill) << 8)
+                        | ((((argb >>> bShift) & ~bGrey) | (sGrey & bGrey)) & bMask ^ bXor | bFill);
             }
-
-            int out, v;
-
-            switch (aSrc) {
-                case ALPHA:
-                    v = sA;
-                    break;
-                case ALPHA_INVERTED:
-                    v = 255 - sA;
-                    break;
-                case RED:
-                    v = sR;
-                    break;
-                case RED_INVERTED:
-                    v = 255 - sR;
-                    break;
-                case GREEN:
-                    v = sG;
-                    break;
-                case GREEN_INVERTED:
-                    v = 255 - sG;
-                    break;
-                case BLUE:
-                    v = sB;
-                    break;
-                case BLUE_INVERTED:
-                    v = 255 - sB;
-                    break;
-                case GREY:
-                    v = sGrey;
-                    break;
-                case GREY_INVERTED:
-                    v = 255 - sGrey;
-                    break;
-                default:
-                    v = aSrc;
-            }
-
-            out = v << 24;
-
-            switch (rSrc) {
-                case ALPHA:
-                    v = sA;
-                    break;
-                case ALPHA_INVERTED:
-                    v = 255 - sA;
-                    break;
-                case RED:
-                    v = sR;
-                    break;
-                case RED_INVERTED:
-                    v = 255 - sR;
-                    break;
-                case GREEN:
-                    v = sG;
-                    break;
-                case GREEN_INVERTED:
-                    v = 255 - sG;
-                    break;
-                case BLUE:
-                    v = sB;
-                    break;
-                case BLUE_INVERTED:
-                    v = 255 - sB;
-                    break;
-                case GREY:
-                    v = sGrey;
-                    break;
-                case GREY_INVERTED:
-                    v = 255 - sGrey;
-                    break;
-                default:
-                    v = rSrc;
-            }
-
-            out |= v << 16;
-
-            switch (gSrc) {
-                case ALPHA:
-                    v = sA;
-                    break;
-                case ALPHA_INVERTED:
-                    v = 255 - sA;
-                    break;
-                case RED:
-                    v = sR;
-                    break;
-                case RED_INVERTED:
-                    v = 255 - sR;
-                    break;
-                case GREEN:
-                    v = sG;
-                    break;
-                case GREEN_INVERTED:
-                    v = 255 - sG;
-                    break;
-                case BLUE:
-                    v = sB;
-                    break;
-                case BLUE_INVERTED:
-                    v = 255 - sB;
-                    break;
-                case GREY:
-                    v = sGrey;
-                    break;
-                case GREY_INVERTED:
-                    v = 255 - sGrey;
-                    break;
-                default:
-                    v = gSrc;
-            }
-
-            out |= v << 8;
-
-            switch (bSrc) {
-                case ALPHA:
-                    v = sA;
-                    break;
-                case ALPHA_INVERTED:
-                    v = 255 - sA;
-                    break;
-                case RED:
-                    v = sR;
-                    break;
-                case RED_INVERTED:
-                    v = 255 - sR;
-                    break;
-                case GREEN:
-                    v = sG;
-                    break;
-                case GREEN_INVERTED:
-                    v = 255 - sG;
-                    break;
-                case BLUE:
-                    v = sB;
-                    break;
-                case BLUE_INVERTED:
-                    v = 255 - sB;
-                    break;
-                case GREY:
-                    v = sGrey;
-                    break;
-                case GREY_INVERTED:
-                    v = 255 - sGrey;
-                    break;
-                default:
-                    v = bSrc;
+        } else {
+            for (int i = start; i < end; ++i) {
+                final int argb = pixels[i];
+                pixels[i] = (((argb >>> aShift) & aMask ^ aXor | aFill) << 24)
+                        | (((argb >>> rShift) & rMask ^ rXor | rFill) << 16)
+                        | (((argb >>> gShift) & gMask ^ gXor | gFill) << 8)
+                        | ((argb >>> bShift) & bMask ^ bXor | bFill);
             }
+        }
+    }
 
-            pixels[i] = out | v;
+    /**
+     * Returns the terms used to compute a destination channel from a channel
+     * source value: the shift that moves the source channel into the low
+     * byte, a mask that selects the grey value instead of the shifted pixel,
+     * the mask that selects the low byte (0 for constant values), a value to
+     * exclusive-or with the result to invert it, and a constant fill value.
+     */
+    private static int[] channelTerms(int src) {
+        final int shift, grey, xor;
+        switch (src) {
+            case ALPHA:
+            case ALPHA_INVERTED:
+                shift = 24;
+                grey = 0;
+                break;
+            case RED:
+            case RED_INVERTED:
+                shift = 16;
+                grey = 0;
+                break;
+            case GREEN:
+            case GREEN_INVERTED:
+                shift = 8;
+                grey = 0;
+                break;
+            case BLUE:
+            case BLUE_INVERTED:
+                shift = 0;
+                grey = 0;
+                break;
+            case GREY:
+            case GREY_INVERTED:
+                shift = 0;
+                grey = -1;
+                break;
+            default:
+                // constant value
+                return new int[]{0, 0, 0, 0, src};
+        }
+        switch (src) {
+            case ALPHA_INVERTED:
+            case RED_INVERTED:
+            case GREEN_INVERTED:
+            case BLUE_INVERTED:
+            case GREY_INVERTED:
+                xor = 0xff;
+                break;
+            default:
+                xor = 0;
         }
+        return new int[]{shift, grey, 0xff, xor, 0};
     }
 }
@@ -98,18 +98,7 @@ public class ColorOverlayFilter extends AbstractPixelwiseFilter {
 
     @Override
     public void filterPixels(int[] argb, int start, int end) {
-        final int rgb = this.rgb & 0xffffff;
-        if (invert) {
-            for (int i = start; i < end; ++i) {
-                final int p = argb[i];
-                argb[i] = ((0xff000000 - (p & 0xff000000)) & 0xff000000) | rgb;
-            }
-        } else {
-            for (int i = start; i < end; ++i) {
-                final int p = argb[i];
-                argb[i] = (p & 0xff000000) | rgb;
-            }
-        }
+        overlayRange(argb, start, end, rgb, invert);
     }
 
     @Override
@@ -143,30 +132,25 @@ public class ColorOverlayFilter extends AbstractPixelwiseFilter {
                 final int y0 = y;
                 final int rowCount = rows;
                 units[i] = () -> {
-                    overlay(pixels, width, y0, rowCount, rgb, invert);
+                    overlayRange(pixels, y0 * width, (y0 + rowCount) * width, rgb, invert);
                 };
                 y += rows;
             }
             sj.runUnchecked(units);
         } else {
-            overlay(pixels, width, 0, height, rgb, invert);
+            overlayRange(pixels, 0, width * height, rgb, invert);
         }
     }
 
-    private static void overlay(int[] in, int width, int y0, int rows, int rgb, boolean invert) {
-        int i = y0 * width;
-        final int limit = i + width * rows;
+    private static void overlayRange(int[] in, int start, int end, int rgb, boolean invert) {
         rgb &= 0xffffff;
-
         if (invert) {
-            for (; i < limit; ++i) {
-                final int p = in[i];
-                in[i] = ((0xff000000 - (p & 0xff000000)) & 0xff000000) | rgb;
+            for (int i = start; i < end; ++i) {
+                in[i] = (~in[i] & 0xff000000) | rgb;
             }
         } else {
-            for (i = 0; i < limit; ++i) {
-                final int p = in[i];
-                in[i] = (p & 0xff000000) | rgb;
+            for (int i = start; i < end; ++i) {
+                in[i] = (in[i] & 0xff000000) | rgb;
             }
         }
     }
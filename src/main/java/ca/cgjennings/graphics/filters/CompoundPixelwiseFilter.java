@@ -73,7 +73,7 @@ public final class CompoundPixelwiseFilter extends AbstractPixelwiseFilter {
         if (filter == null) {
             throw new NullPointerException("filter");
         }
-        final int len = filters.length + 1;
+        final int len = filters.length;
         filters = Arrays.copyOf(filters, len + 1, AbstractPixelwiseFilter[].class);
         filters[len] = filter;
     }
@@ -102,6 +102,13 @@ public final class CompoundPixelwiseFilter extends AbstractPixelwiseFilter {
         return filters.length;
     }
 
+    @Override
+    void prepareToFilter() {
+        for (int i = 0; i < filters.length; ++i) {
+            filters[i].prepareToFilter();
+        }
+    }
+
     @Override
     public void filterPixels(int[] argb, int start, int end) {
         for (int i = 0; i < filters.length; ++i) {
@@ -0,0 +1,300 @@
+package ca.cgjennings.graphics.filters;
+
+import ca.cgjennings.algo.SplitJoin;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A filter that applies a sequence of image operations as a single filter.
+ * Applying each filter in turn requires every filter to convert its source
+ * image into ARGB pixel data, and the result back into a new destination
+ * image. A pipeline converts the source image into pixel data once, passes
+ * the pixel data from stage to stage, and converts the final result into the
+ * destination image.
+ *
+ * <p>
+ * Along the way, the pipeline:
+ * <ul>
+ * <li>fuses runs of adjacent {@link AbstractPixelwiseFilter}s, applying every
+ * filter in the run to a small block of pixels before moving on to the next
+ * block, so that the pixels are read from memory once per run rather than
+ * once per filter (compare {@link CompoundPixelwiseFilter});
+ * <li>passes the pixel data of {@link AbstractImagewiseFilter}s and
+ * {@link BlurFilter}s directly between a pair of buffers that are reused by
+ * every stage;
+ * <li>presents the pixel buffers to other image operations as
+ * {@code TYPE_INT_ARGB} images that share the buffer memory, so that no
+ * conversion is needed before or after the operation.
+ * </ul>
+ *
+ * <p>
+ * Filters that are subclassed in order to override
+ * {@link BufferedImageOp#filter} are always treated as general image
+ * operations, so that any setup they perform before filtering still takes
+ * place. Intermediate results are always stored in ARGB format, even if the
+ * source image is opaque. Operations may change the size of the image; in
+ * that case, the destination passed to {@link #filter} must be {@code null} or
+ * have the size of the final result.
+ *
+ * <p>
+ * <b>In-place filtering:</b> This class supports in-place filtering (the source
+ * and destination images may be the same) if the size of the image does not
+ * change.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+public final class FilterPipeline extends AbstractImageFilter {
+
+    private BufferedImageOp[] filters;
+
+    /**
+     * The number of pixels that each fused run of pixelwise filters is
+     * applied to before moving on to the next block.
+     */
+    private static final int BLOCK_SIZE = 4_096;
+
+    /**
+     * Creates a new pipeline with an empty filter list. If the list is not
+     * changed, this filter will have the same effect as a {@link CloneFilter}.
+     */
+    public FilterPipeline() {
+        filters = new BufferedImageOp[0];
+    }
+
+    /**
+     * Creates a new pipeline with the specified filter list.
+     *
+     * @param filters an array of filters to apply in sequence
+     */
+    public FilterPipeline(BufferedImageOp... filters) {
+        setFilters(filters);
+    }
+
+    /**
+     * Returns a copy of the filter list as an array.
+     *
+     * @return the filters applied by this pipeline
+     */
+    public BufferedImageOp[] getFilters() {
+        return filters.clone();
+    }
+
+    /**
+     * Sets the filters to be applied by this pipeline.
+     *
+     * @param filters an array of filters to apply in sequence
+     */
+    public void setFilters(BufferedImageOp... filters) {
+        if (filters == null) {
+            throw new NullPointerException("filters");
+        }
+        filters = filters.clone();
+        for (int i = 0; i < filters.length; ++i) {
+            if (filters[i] == null) {
+                throw new NullPointerException("filters[" + i + "]");
+            }
+        }
+        this.filters = filters;
+    }
+
+    /**
+     * Appends a new filter to the end of the filter list.
+     *
+     * @param filter the new filter to append
+     */
+    public void appendFilter(BufferedImageOp filter) {
+        if (filter == null) {
+            throw new NullPointerException("filter");
+        }
+        final int len = filters.length;
+        filters = Arrays.copyOf(filters, len + 1);
+        filters[len] = filter;
+    }
+
+    /**
+     * Returns the filter at the specified index in the list of filters.
+     *
+     * @param index the index in the filter list, from 0 to
+     * {@link #getSize()}-1.
+     * @return the filter at the specified index
+     */
+    public BufferedImageOp getFilter(int index) {
+        if (index < 0 || index >= filters.length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return filters[index];
+    }
+
+    /**
+     * Returns the number of filters that will be applied by this pipeline.
+     *
+     * @return the number of filters in the list
+     */
+    public int getSize() {
+        return filters.length;
+    }
+
+    @Override
+    public BufferedImage filter(BufferedImage src, BufferedImage dest) {
+        final BufferedImageOp[] ops = filters;
+        int width = src.getWidth();
+        int height = src.getHeight();
+
+        int[] in = getARGB(src, null);
+        int[] out = null;
+
+        final ArrayList<AbstractPixelwiseFilter> run = new ArrayList<>();
+        for (int i = 0; i < ops.length; ++i) {
+            final BufferedImageOp op = ops[i];
+            final Class<?> type = op.getClass();
+
+            if (op instanceof AbstractPixelwiseFilter && IS_DIRECT.get(type)) {
+                run.add((AbstractPixelwiseFilter) op);
+                continue;
+            }
+            if (!run.isEmpty()) {
+                filterPixelwise(run, in);
+                run.clear();
+            }
+
+            if (out == null) {
+                out = new int[in.length];
+            }
+            if (type == BlurFilter.class) {
+                ((BlurFilter) op).filter(in, out, width, height, false);
+            } else if (op instanceof AbstractImagewiseFilter && IS_DIRECT.get(type)) {
+                // the result may be stored in either buffer
+                final int[] result = ((AbstractImagewiseFilter) op).filter(in, out, width, height);
+                if (result != in) {
+                    out = in;
+                    in = result;
+                }
+            } else {
+                final BufferedImage view = wrap(in, width, height);
+                final Rectangle2D bounds = op.getBounds2D(view);
+                BufferedImage target = null;
+                if ((int) bounds.getWidth() == width && (int) bounds.getHeight() == height) {
+                    Arrays.fill(out, 0);
+                    target = wrap(out, width, height);
+                }
+                final BufferedImage result = op.filter(view, target);
+                if (result == target) {
+                    final int[] swap = in;
+                    in = out;
+                    out = swap;
+                } else {
+                    width = result.getWidth();
+                    height = result.getHeight();
+                    in = getARGB(result, null);
+                    out = null;
+                }
+            }
+        }
+        if (!run.isEmpty()) {
+            filterPixelwise(run, in);
+        }
+
+        if (dest == null) {
+            if (width == src.getWidth() && height == src.getHeight()) {
+                dest = createCompatibleDestImage(src, null);
+            } else {
+                final ColorModel cm = src.getColorModel();
+                dest = new BufferedImage(cm, cm.createCompatibleWritableRaster(width, height), cm.isAlphaPremultiplied(), null);
+            }
+        } else if (dest.getWidth() != width || dest.getHeight() != height) {
+            throw new IllegalArgumentException("destination must be " + width + 'x' + height);
+        }
+        setARGB(dest, in);
+        return dest;
+    }
+
+    /**
+     * Applies a run of pixelwise filters to pixel data in place, in parallel
+     * if the amount of work justifies it.
+     */
+    private static void filterPixelwise(ArrayList<AbstractPixelwiseFilter> run, final int[] argb) {
+        final AbstractPixelwiseFilter[] stages = run.toArray(new AbstractPixelwiseFilter[run.size()]);
+        float work = 0f;
+        for (AbstractPixelwiseFilter f : stages) {
+            f.prepareToFilter();
+            work += f.workFactor();
+        }
+
+        final int len = argb.length;
+        if (len * work >= Tuning.PER_ROW) {
+            SplitJoin sj = SplitJoin.getInstance();
+            final int n = Math.min(len, sj.getIdealSplitCount());
+            final int elsPerTask = len / n;
+            final int remainder = len - n * elsPerTask;
+            Runnable[] units = new Runnable[n];
+            int start = 0;
+            for (int i = 0; i < n; ++i) {
+                int els = elsPerTask;
+                if (i < remainder) {
+                    ++els;
+                }
+                final int s = start;
+                final int e = start + els;
+                units[i] = () -> filterBlocks(stages, argb, s, e);
+                start += els;
+            }
+            sj.runUnchecked(units);
+        } else {
+            filterBlocks(stages, argb, 0, len);
+        }
+    }
+
+    private static void filterBlocks(AbstractPixelwiseFilter[] stages, int[] argb, int start, int end) {
+        for (int block = start; block < end; block += BLOCK_SIZE) {
+            final int blockEnd = Math.min(end, block + BLOCK_SIZE);
+            for (int i = 0; i < stages.length; ++i) {
+                stages[i].filterPixels(argb, block, blockEnd);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code TYPE_INT_ARGB} image that uses the specified pixel
+     * buffer as its pixel data.
+     */
+    private static BufferedImage wrap(int[] argb, int width, int height) {
+        final WritableRaster raster = Raster.createPackedRaster(
+                new DataBufferInt(argb, width * height), width, height, width,
+                ARGB_MASKS, null
+        );
+        return new BufferedImage(ARGB, raster, false, null);
+    }
+
+    private static final int[] ARGB_MASKS = new int[]{0xff0000, 0xff00, 0xff, 0xff000000};
+    private static final DirectColorModel ARGB = (DirectColorModel) ColorModel.getRGBdefault();
+
+    /**
+     * Records whether a filter can be applied directly to pixel data. This is
+     * true unless the filter's class overrides {@code filter} to perform some
+     * setup of its own, in which case it must be applied as an image
+     * operation.
+     */
+    private static final ClassValue<Boolean> IS_DIRECT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != AbstractPixelwiseFilter.class && c != AbstractImagewiseFilter.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("filter", BufferedImage.class, BufferedImage.class);
+                    return false;
+                } catch (NoSuchMethodException ex) {
+                    // keep looking
+                }
+            }
+            return true;
+        }
+    };
+}
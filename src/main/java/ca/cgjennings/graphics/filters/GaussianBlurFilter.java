@@ -60,6 +60,47 @@ public class GaussianBlurFilter extends AbstractConvolver {
         return radius;
     }
 
+    /**
+     * Blurs with at least this radius are approximated with extended box
+     * filters, whose cost does not depend on the radius, instead of
+     * convolving with a Gaussian kernel.
+     */
+    private static final float BOX_RADIUS = 8f;
+
+    @Override
+    public int[] filter(int[] source, int[] destination, int width, int height) {
+        if (radius < BOX_RADIUS) {
+            return super.filter(source, destination, width, height);
+        }
+
+        final boolean premul = isAlphaPremultiplied();
+        if (premul) {
+            premultiply(source);
+        }
+
+        // the blur alternates between two buffers and ends in the first
+        final int[] temp = (destination == null || destination == source) ? new int[source.length] : destination;
+        final int[] result = BoxBlur.gaussian(source, temp, width, height, radius / 3d, getEdgeHandling());
+
+        if (!isAlphaFiltered()) {
+            for (int i = 0; i < result.length; ++i) {
+                result[i] |= 0xff000000;
+            }
+        }
+        if (premul) {
+            unpremultiply(result);
+        }
+        return result;
+    }
+
+    @Override
+    protected int getHaloRows() {
+        if (radius < BOX_RADIUS) {
+            return super.getHaloRows();
+        }
+        return getEdgeHandling() == EdgeHandling.WRAP ? -1 : BoxBlur.reach(radius / 3d);
+    }
+
     @Override
     protected Kernel[] getKernels() {
         if (kernels[0] != null) {
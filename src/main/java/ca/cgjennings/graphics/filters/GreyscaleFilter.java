@@ -19,9 +19,11 @@ public class GreyscaleFilter extends AbstractPixelwiseFilter {
     public void filterPixels(int[] argb, int start, int end) {
         for (int i = start; i < end; ++i) {
             int rgb = argb[i];
-            int gray = ((77 * ((rgb >> 16) & 0xff))
-                    + (150 * ((rgb >> 8) & 0xff))
-                    + (28 * (rgb & 0xff))) / 255;
+            // (x * 0x8081) >>> 23 == x / 255 for the range of the weighted
+            // sum; avoiding the division lets the JIT vectorize the loop
+            int gray = ((77 * ((rgb >> 16) & 0xff)
+                    + 150 * ((rgb >> 8) & 0xff)
+                    + 28 * (rgb & 0xff)) * 0x8081) >>> 23;
             argb[i] = (rgb & 0xff000000) | (gray << 16) | (gray << 8) | (gray);
         }
     }
@@ -18,11 +18,8 @@ public class InversionFilter extends AbstractPixelwiseFilter {
     @Override
     public void filterPixels(int[] argb, int start, int end) {
         for (int x = start; x < end; ++x) {
-            int pixel = argb[x];
-            argb[x] = (pixel & 0xff000000)
-                    | ((0xff0000 - (pixel & 0xff0000)) & 0xff0000)
-                    | ((0xff00 - (pixel & 0xff00)) & 0xff00)
-                    | ((0xff - (pixel & 0xff)) & 0xff);
+            // 255 - c == c ^ 255 for each 8-bit channel
+            argb[x] ^= 0x00ffffff;
         }
     }
 }
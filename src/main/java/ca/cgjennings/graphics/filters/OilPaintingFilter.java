@@ -74,6 +74,11 @@ public class OilPaintingFilter extends AbstractImagewiseFilter {
         this.radius = radius;
     }
 
+    @Override
+    protected int getHaloRows() {
+        return radius;
+    }
+
     @Override
     protected float workFactor() {
         return (radius * radius);
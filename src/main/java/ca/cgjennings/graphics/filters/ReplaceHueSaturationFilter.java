@@ -30,23 +30,31 @@ public class ReplaceHueSaturationFilter extends AbstractTintingFilter {
             s = 1;
         }
         super.setFactors(h, s, b);
+
+        // the result depends only on the average of the channels, so the
+        // colour for each of the 256 possible averages is computed up front
+        final int[] rgb = new int[256];
+        for (int i = 0; i < 256; ++i) {
+            float bri = (i / 255f) * bFactor;
+            if (bri > 1f) {
+                bri = 1f;
+            }
+            rgb[i] = Color.HSBtoRGB(hFactor, sFactor, bri) & 0xffffff;
+        }
+        table = rgb;
     }
 
+    private int[] table;
+
     @Override
     public void filterPixels(int[] argb, int start, int end) {
+        final int[] table = this.table;
         for (int p = start; p < end; ++p) {
-            int newrgb = argb[p];
-            int alpha = newrgb & 0xff000000;
-
+            final int rgb = argb[p];
+            final int alpha = rgb & 0xff000000;
             if (alpha != 0) {
-                int bInt = (((newrgb & 0xff0000) >> 16) + ((newrgb & 0xff00) >> 8) + (newrgb & 0xff)) / 3;
-
-                float b = (bInt / 255f) * bFactor;
-                if (b > 1f) {
-                    b = 1f;
-                }
-                newrgb = Color.HSBtoRGB(hFactor, sFactor, b);
-                argb[p] = (newrgb & 0xffffff) | alpha;
+                final int bInt = (((rgb >> 16) & 0xff) + ((rgb >> 8) & 0xff) + (rgb & 0xff)) / 3;
+                argb[p] = table[bInt] | alpha;
             }
         }
     }
@@ -0,0 +1,209 @@
+package ca.cgjennings.graphics.filters;
+
+import ca.cgjennings.graphics.ImageUtilities;
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A process-wide cache of tinted images that is shared by all
+ * {@link TintCache}s. Results are keyed by the identity of the source image,
+ * the class of the tinting filter, and the filter factors quantized to a fixed
+ * number of steps. The least recently used results are discarded when the
+ * total size of the cached images exceeds a byte limit. Entries are also
+ * discarded when their source image is no longer reachable.
+ *
+ * <p>
+ * Results are always computed from the quantized factors rather than the
+ * requested factors, so the image returned for a given key does not depend on
+ * which factors were requested first.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class SharedTintCache {
+
+    private SharedTintCache() {
+    }
+
+    /**
+     * The number of quantization steps per unit for each factor. The hue is
+     * measured in full turns; saturation and brightness are scale factors.
+     */
+    private static final float H_STEPS = 4_096f, SB_STEPS = 1_024f;
+
+    private static long limit = 48L * 1_024L * 1_024L;
+    private static long size;
+
+    private static final ReferenceQueue<BufferedImage> collected = new ReferenceQueue<>();
+    private static final LinkedHashMap<Key, BufferedImage> cache = new LinkedHashMap<>(32, 0.75f, true);
+
+    /**
+     * Returns {@code true} if results for filters of the specified class can
+     * be shared. This is only true for the tinting filters in this package,
+     * whose result depends on nothing but their factors.
+     */
+    static boolean isShareable(Class<?> type) {
+        return type == TintFilter.class || type == TintFilter.ScaledTintFilter.class
+                || type == TintOverlayFilter.class || type == ReplaceHueSaturationFilter.class;
+    }
+
+    /**
+     * Returns a tinted copy of an image, using a cached result if possible.
+     *
+     * @param source the image to tint
+     * @param type the class of filter to apply; must be shareable
+     * @param h the hue factor
+     * @param s the saturation factor
+     * @param b the brightness factor
+     * @return the tinted image, which must not be modified
+     */
+    static BufferedImage get(BufferedImage source, Class<? extends TintingFilter> type, float h, float s, float b) {
+        final int qh = Math.round((h - (float) Math.floor(h)) * H_STEPS) % (int) H_STEPS;
+        final int qs = Math.round(s * SB_STEPS);
+        final int qb = Math.round(b * SB_STEPS);
+
+        final Key probe = new Key(source, null, type, qh, qs, qb);
+        synchronized (cache) {
+            expunge();
+            final BufferedImage hit = cache.get(probe);
+            if (hit != null) {
+                return hit;
+            }
+        }
+
+        // filter outside of the lock so that other images can be served
+        final TintingFilter filter;
+        try {
+            filter = type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new AssertionError(ex);
+        }
+        filter.setFactors(qh / H_STEPS, qs / SB_STEPS, qb / SB_STEPS);
+        final BufferedImage result = ImageUtilities.createCompatibleIntRGBFormat(source);
+        filter.filter(source, result);
+
+        final long bytes = 4L * result.getWidth() * result.getHeight();
+        synchronized (cache) {
+            final BufferedImage race = cache.get(probe);
+            if (race != null) {
+                return race;
+            }
+            if (bytes <= limit) {
+                cache.put(new Key(source, collected, type, qh, qs, qb), result);
+                size += bytes;
+                trim(limit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the maximum total size of the cached images.
+     *
+     * @param bytes the new limit, in bytes
+     */
+    static void setLimit(long bytes) {
+        if (bytes < 0L) {
+            throw new IllegalArgumentException("bytes < 0: " + bytes);
+        }
+        synchronized (cache) {
+            limit = bytes;
+            trim(bytes);
+        }
+    }
+
+    /**
+     * Returns the maximum total size of the cached images.
+     *
+     * @return the limit, in bytes
+     */
+    static long getLimit() {
+        synchronized (cache) {
+            return limit;
+        }
+    }
+
+    /**
+     * Discards all cached images.
+     */
+    static void clear() {
+        synchronized (cache) {
+            cache.clear();
+            size = 0L;
+            expunge();
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the cache fits the limit.
+     * Must be called while holding the cache lock.
+     */
+    private static void trim(long limit) {
+        final Iterator<Map.Entry<Key, BufferedImage>> it = cache.entrySet().iterator();
+        while (size > limit && it.hasNext()) {
+            size -= bytes(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes entries whose source image has been collected. Must be called
+     * while holding the cache lock.
+     */
+    private static void expunge() {
+        Object ref;
+        while ((ref = collected.poll()) != null) {
+            final BufferedImage removed = cache.remove((Key) ref);
+            if (removed != null) {
+                size -= bytes(removed);
+            }
+        }
+    }
+
+    private static long bytes(BufferedImage bi) {
+        return 4L * bi.getWidth() * bi.getHeight();
+    }
+
+    /**
+     * A cache key. The source image is weakly referenced and compared by
+     * identity; a key whose image has been collected is only equal to itself.
+     */
+    private static final class Key extends WeakReference<BufferedImage> {
+
+        private final Class<?> type;
+        private final int qh, qs, qb;
+        private final int hash;
+
+        Key(BufferedImage source, ReferenceQueue<BufferedImage> queue, Class<?> type, int qh, int qs, int qb) {
+            super(source, queue);
+            this.type = type;
+            this.qh = qh;
+            this.qs = qs;
+            this.qb = qb;
+            hash = ((System.identityHashCode(source) * 31 + type.hashCode()) * 31 + qh) * 961 + qs * 31 + qb;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            final BufferedImage source = get();
+            return source != null && source == k.get() && type == k.type
+                    && qh == k.qh && qs == k.qs && qb == k.qb;
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package ca.cgjennings.graphics.filters;
 
 import ca.cgjennings.algo.SplitJoin;
-import java.awt.AlphaComposite;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 /**
@@ -12,8 +10,13 @@ import java.awt.image.BufferedImage;
  * configured by the filter user.
  *
  * <p>
- * <b>In-place filtering:</b> This filter does not support in-place filtering
- * (the source and destination must be different).
+ * The stroke is found from the distance between each pixel and the nearest
+ * pixel on the other side of the edge, so the time needed to apply the filter
+ * does not depend on the stroke width.
+ *
+ * <p>
+ * <b>In-place filtering:</b> This class supports in-place filtering (the source
+ * and destination images may be the same).
  *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  * @since 3.0
@@ -204,67 +207,34 @@ public final class StrokeFilter extends AbstractImageFilter {
             dest = createCompatibleDestImage(src, null);
         }
 
-        int w = src.getWidth();
-        int h = src.getHeight();
-
-        int[] srcPixels = getARGB(src, null);
-        int[] dstPixels;
+        final int w = src.getWidth();
+        final int h = src.getHeight();
+        final int[] srcPixels = getARGB(src, null);
+        final int[] dstPixels;
 
-        // TODO: for efficiency, implement SrcOver, DstAtop for int[] images
-        // instead of making J2D calls; can assume src and dst are same dimensions
-        Graphics2D g;
         switch (getPosition()) {
             case OUTSIDE:
                 dstPixels = boxOutlineFilter(srcPixels, null, w, h, width, false, round, color);
-                setARGB(dest, dstPixels);
-                g = dest.createGraphics();
-                try {
-                    g.setComposite(AlphaComposite.SrcOver);
-                    g.drawImage(src, 0, 0, null);
-                } finally {
-                    g.dispose();
-                }
+                srcOver(srcPixels, dstPixels);
                 break;
             case INSIDE:
                 dstPixels = boxOutlineFilter(srcPixels, null, w, h, width, true, round, color);
-                setARGB(dest, dstPixels);
-                g = dest.createGraphics();
-                try {
-                    g.setComposite(AlphaComposite.DstAtop);
-                    g.drawImage(src, 0, 0, null);
-                } finally {
-                    g.dispose();
-                }
+                dstAtop(dstPixels, srcPixels);
                 break;
             case CENTER:
-                // create inside part in temp image
-                int outsideWidth = width / 2;
-                BufferedImage temp = createCompatibleDestImage(src, null);
-                dstPixels = boxOutlineFilter(srcPixels, null, w, h, width - outsideWidth, true, round, color);
-                setARGB(temp, dstPixels);
-                g = temp.createGraphics();
-                try {
-                    g.setComposite(AlphaComposite.DstAtop);
-                    g.drawImage(src, 0, 0, null);
-                } finally {
-                    g.dispose();
-                }
-
-                // apply outside part to temp image
-                boxOutlineFilter(srcPixels, dstPixels, w, h, outsideWidth, false, round, color);
-                setARGB(dest, dstPixels);
-                g = dest.createGraphics();
-                try {
-                    g.setComposite(AlphaComposite.SrcOver);
-                    g.drawImage(temp, 0, 0, null);
-                } finally {
-                    g.dispose();
-                }
+                // the inside part is clipped to the source shape, then
+                // drawn over the outside part
+                final int outsideWidth = width / 2;
+                final int[] inside = boxOutlineFilter(srcPixels, null, w, h, width - outsideWidth, true, round, color);
+                dstAtop(inside, srcPixels);
+                dstPixels = boxOutlineFilter(srcPixels, null, w, h, outsideWidth, false, round, color);
+                srcOver(inside, dstPixels);
                 break;
             default:
                 throw new AssertionError();
         }
 
+        setARGB(dest, dstPixels);
         return dest;
     }
 
@@ -287,229 +257,313 @@ public final class StrokeFilter extends AbstractImageFilter {
         CENTER
     }
 
+    /**
+     * Returns ARGB pixel data for a stroke that follows the edges of the
+     * shape described by the alpha channel of an image. The stroke pixels all
+     * share the RGB value of the stroke colour; only their alpha varies.
+     *
+     * @param srcImage the source image pixels
+     * @param dstImage the array to store the stroke in, or {@code null}
+     * @param width the image width
+     * @param height the image height
+     * @param strokeWidth the stroke width, which may be 0
+     * @param invert if {@code true}, the stroke is measured inward from the
+     * edge instead of outward
+     * @param round if {@code true}, a round pen is used
+     * @param argb the stroke colour
+     * @return the stroke pixels
+     */
     static int[] boxOutlineFilter(final int[] srcImage, int[] dstImage, final int width, final int height, int strokeWidth, final boolean invert, final boolean round, final int argb) {
-        final int boxSize = strokeWidth * 2 + 1;
         final int[] dest = dstImage == null ? new int[srcImage.length] : dstImage;
 
-        if ((width * height * width) > Tuning.PER_IMAGE) {
-            SplitJoin sj = SplitJoin.getInstance();
-            final int n = Math.min(height, sj.getIdealSplitCount());
-            final int rowsPerTask = height / n;
-            final int remainder = height - n * rowsPerTask;
-            final int[][] alphas = round ? makeRoundAlphaTable(boxSize) : null;
-            Runnable[] units = new Runnable[n];
-            int y = 0;
-            for (int i = 0; i < n; ++i) {
-                int rows = rowsPerTask;
-                if (i < remainder) {
-                    ++rows;
-                }
+        // the coverage of each pixel by the side of the edge that the
+        // stroke is measured from
+        final int[] cover = new int[srcImage.length];
+        for (int i = 0; i < cover.length; ++i) {
+            final int a = srcImage[i] >>> 24;
+            cover[i] = invert ? 255 - a : a;
+        }
 
-                final int y0 = y;
-                final int rowCount = rows;
-                units[i] = () -> {
-                    if (round) {
-                        filterBlockRound(srcImage, dest, width, height, boxSize, invert, argb, y0, rowCount, alphas);
-                    } else {
-                        filterBlockSquare(srcImage, dest, width, height, boxSize, invert, argb, y0, rowCount);
-                    }
-                };
+        final int[] alpha = round
+                ? roundStroke(cover, width, height, strokeWidth)
+                : maxFilter(cover, width, height, strokeWidth);
 
-                y += rows;
-            }
-            sj.runUnchecked(units);
-        } else {
-            if (round) {
-                final int[][] alphas = makeRoundAlphaTable(boxSize);
-                filterBlockRound(srcImage, dest, width, height, boxSize, invert, argb, 0, height, alphas);
-            } else {
-                filterBlockSquare(srcImage, dest, width, height, boxSize, invert, argb, 0, height);
-            }
+        final int A_COMP = (argb >>> 24);
+        final int RGB_COMP = argb & 0xffffff;
+        for (int i = 0; i < dest.length; ++i) {
+            dest[i] = RGB_COMP | ((alpha[i] * A_COMP / 255) << 24);
         }
         return dest;
     }
 
-    static void filterBlockSquare(int[] srcImage, int[] dstImage, int width, int height, int boxSize, boolean invert, int argb, int y0, int rows) {
-        int box2 = boxSize / 2;
-        int boxLimit = boxSize - box2;
+    /**
+     * Returns the maximum value in the square of size 2r+1 centred on each
+     * pixel. This is the stroke produced by a square pen. The filter is
+     * separable and each dimension is computed with the van Herk/Gil-Werman
+     * algorithm, so the cost per pixel does not depend on {@code r}.
+     */
+    private static int[] maxFilter(final int[] in, final int width, final int height, final int r) {
+        if (r == 0) {
+            return in.clone();
+        }
+        final int[] temp = new int[in.length];
+        final int[] out = new int[in.length];
+        split(height, in.length, (y0, y1) -> maxRows(in, temp, width, height, y0, y1, r));
+        split(width, in.length, (x0, x1) -> maxRows(temp, out, height, width, x0, x1, r));
+        return out;
+    }
 
-        final int A_COMP = (argb >>> 24);
-        final int RGB_COMP = argb & 0xffffff;
+    /**
+     * Applies a one dimensional maximum filter to a block of rows, writing
+     * the result transposed.
+     */
+    private static void maxRows(int[] in, int[] out, int width, int height, int y0, int y1, int r) {
+        final int k = 2 * r + 1;
+        // rows are padded with r zeroes at each end and split into segments
+        // of length k; every window then spans at most two segments
+        final int len = ((width + 2 * r + k - 1) / k) * k;
+        final int[] row = new int[len];
+        final int[] prefix = new int[len];
+        final int[] suffix = new int[len];
+
+        for (int y = y0; y < y1; ++y) {
+            System.arraycopy(in, y * width, row, r, width);
+            for (int s = 0; s < len; s += k) {
+                final int e = s + k;
+                int m = 0;
+                for (int i = s; i < e; ++i) {
+                    m = Math.max(m, row[i]);
+                    prefix[i] = m;
+                }
+                m = 0;
+                for (int i = e - 1; i >= s; --i) {
+                    m = Math.max(m, row[i]);
+                    suffix[i] = m;
+                }
+            }
+            for (int x = 0, o = y; x < width; ++x, o += height) {
+                out[o] = Math.max(suffix[x], prefix[x + k - 1]);
+            }
+        }
+    }
 
-        rows += y0;
-        for (int y = y0; y < rows; ++y) {
-            final int destRow = y * width;
-            for (int x = 0; x < width; ++x) {
+    /**
+     * Returns the alpha values of the stroke produced by a round pen. The
+     * Euclidean distance from each pixel to the nearest covered pixel is found
+     * with the linear time algorithm of Felzenszwalb and Huttenlocher. The
+     * coverage of that pixel places the edge within it, which anti-aliases
+     * the stroke.
+     */
+    private static int[] roundStroke(final int[] cover, final int width, final int height, final int strokeWidth) {
+        // the nearest pixel may be a faint anti-aliased pixel; the stroke
+        // takes the strength of the strongest pixel in its neighbourhood
+        final int[] strength = maxFilter(cover, width, height, 1);
+        final int[] dist = new int[cover.length];
+        final int[] nearest = new int[cover.length];
+        final int[] alpha = new int[cover.length];
+
+        // a translucent pixel can be nearer than an opaque one that produces
+        // a stronger stroke, so the distance is measured separately to all
+        // covered pixels and to the pixels that are at least half covered
+        boolean faint = false;
+        for (int i = 0; i < cover.length && !faint; ++i) {
+            faint = cover[i] > 0 && cover[i] < 128;
+        }
+        for (int threshold = faint ? 1 : 128; threshold <= 128; threshold += 127) {
+            final int t = threshold;
+            split(width, cover.length, (x0, x1) -> distanceColumns(cover, t, dist, nearest, width, height, x0, x1));
+            split(height, cover.length, (y0, y1) -> distanceRows(cover, strength, dist, nearest, alpha, width, y0, y1, strokeWidth));
+        }
+        return alpha;
+    }
 
-                int by0 = Math.max(y - box2, 0);
-                int by1 = Math.min(y + boxLimit, height);
-                int bx0 = Math.max(x - box2, 0);
-                int bx1 = Math.min(x + boxLimit, width);
-
-                int alpha;
-                if (invert) {
-                    alpha = 255;
-                    for (int i = by0; i < by1; ++i) {
-                        final int rowOffset = i * width;
-                        final int last = rowOffset + bx1;
-                        for (int j = rowOffset + bx0; j < last; ++j) {
-                            alpha = Math.min(alpha, (srcImage[j] >>> 24));
-                        }
-                        if (alpha == 0) {
-                            break;
-                        }
-                    }
-                    alpha = 255 - alpha;
+    /**
+     * Finds the distance from each pixel to the nearest pixel in the same
+     * column whose coverage is at least the threshold, and the index of that
+     * pixel (or -1 if there is none).
+     */
+    private static void distanceColumns(int[] cover, int threshold, int[] dist, int[] nearest, int width, int height, int x0, int x1) {
+        for (int x = x0; x < x1; ++x) {
+            nearest[x] = cover[x] >= threshold ? x : -1;
+            dist[x] = 0;
+        }
+        for (int y = 1, row = width; y < height; ++y, row += width) {
+            for (int i = row + x0, end = row + x1; i < end; ++i) {
+                if (cover[i] >= threshold) {
+                    nearest[i] = i;
+                    dist[i] = 0;
                 } else {
-                    alpha = 0;
-                    for (int i = by0; i < by1; ++i) {
-                        final int rowOffset = i * width;
-                        final int last = rowOffset + bx1;
-                        for (int j = rowOffset + bx0; j < last; ++j) {
-                            alpha = Math.max(alpha, (srcImage[j] >>> 24));
-                        }
-                        if (alpha == 255) {
-                            break;
-                        }
-                    }
+                    nearest[i] = nearest[i - width];
+                    dist[i] = dist[i - width] + 1;
                 }
-
-                if (alpha > 0) {
-                    alpha = (alpha * A_COMP) / 255;
-                    dstImage[destRow + x] = RGB_COMP | (alpha << 24);
-                } else {
-                    dstImage[destRow + x] = RGB_COMP;
+            }
+        }
+        for (int row = (height - 2) * width; row >= 0; row -= width) {
+            for (int i = row + x0, end = row + x1; i < end; ++i) {
+                final int below = i + width;
+                if (nearest[below] >= 0 && (nearest[i] < 0 || dist[below] + 1 < dist[i])) {
+                    nearest[i] = nearest[below];
+                    dist[i] = dist[below] + 1;
                 }
             }
         }
     }
 
-    static int[][] makeRoundAlphaTable(int boxSize) {
-        // create table at 4x size, then halve twice to anti-alias
-        int[][] alphas = makeNonAATable(boxSize * 4);
-        alphas = makeAATable(alphas);
-        return makeAATable(alphas);
+    private static void distanceRows(int[] cover, int[] strength, int[] dist, int[] nearest, int[] alpha, int width, int y0, int y1, int strokeWidth) {
+        // the lower envelope of the parabolas centred on each column
+        final int[] v = new int[width];
+        final double[] z = new double[width + 1];
+        final double[] f = new double[width];
+        // pixels at least this far away (squared) are not part of the stroke
+        final double limit = (strokeWidth + 1d) * (strokeWidth + 1d);
+
+        for (int y = y0; y < y1; ++y) {
+            final int row = y * width;
+            int k = -1;
+            for (int q = 0; q < width; ++q) {
+                if (nearest[row + q] < 0) {
+                    continue;
+                }
+                final double fq = (double) dist[row + q] * dist[row + q];
+                f[q] = fq;
+                if (k < 0) {
+                    k = 0;
+                    v[0] = q;
+                    z[0] = Double.NEGATIVE_INFINITY;
+                    z[1] = Double.POSITIVE_INFINITY;
+                    continue;
+                }
+                double s;
+                for (;;) {
+                    final int p = v[k];
+                    s = ((fq + (double) q * q) - (f[p] + (double) p * p)) / (2d * (q - p));
+                    if (s > z[k]) {
+                        break;
+                    }
+                    --k;
+                }
+                ++k;
+                v[k] = q;
+                z[k] = s;
+                z[k + 1] = Double.POSITIVE_INFINITY;
+            }
+
+            if (k < 0) {
+                // nothing covered in this row or any column that crosses it
+                continue;
+            }
+
+            k = 0;
+            for (int x = 0; x < width; ++x) {
+                while (z[k + 1] < x) {
+                    ++k;
+                }
+                final int p = v[k];
+                final double d2 = (double) (x - p) * (x - p) + f[p];
+                if (d2 >= limit) {
+                    continue;
+                }
+                final double d = Math.sqrt(d2);
+                final int pixel = nearest[row + p];
+                int a = (int) (255d * (strokeWidth - d) + cover[pixel] + 0.5d);
+                a = Math.min(a, strength[pixel]);
+                if (a > alpha[row + x]) {
+                    alpha[row + x] = a;
+                }
+            }
+        }
     }
 
     /**
-     * Creates an anti-aliased rounded alpha table by scaling down a table to
-     * half size.
+     * Composites one image over another, in place. Both arrays hold
+     * unpremultiplied ARGB pixels.
      *
-     * @param alphas2x an alpha table for a pen with twice the size
-     * @return an anti-aliased table at half the input table size
+     * @param top the image to draw on top
+     * @param bottom the image to draw under the top image; overwritten
      */
-    private static int[][] makeAATable(int[][] alphas2x) {
-        final int boxSize = alphas2x.length / 2;
-        int[][] alphas = new int[boxSize][boxSize];
-        for (int y = 0; y < boxSize; ++y) {
-            int y2 = y * 2;
-            for (int x = 0; x < boxSize; ++x) {
-                int x2 = x * 2;
-                alphas[y][x] = (alphas2x[y2][x2]
-                        + alphas2x[y2][x2 + 1]
-                        + alphas2x[y2 + 1][x2]
-                        + alphas2x[y2 + 1][x2 + 1]) / 4;
+    private static void srcOver(int[] top, int[] bottom) {
+        for (int i = 0; i < bottom.length; ++i) {
+            final int t = top[i];
+            final int ta = t >>> 24;
+            if (ta == 255) {
+                bottom[i] = t;
+                continue;
             }
+            if (ta == 0) {
+                continue;
+            }
+            final int b = bottom[i];
+            final int ta255 = ta * 255;
+            final int ba255 = (b >>> 24) * (255 - ta);
+            final int ra255 = ta255 + ba255;
+            if (ra255 == 0) {
+                bottom[i] = 0;
+                continue;
+            }
+            final int half = ra255 / 2;
+            final int r = (((t >> 16) & 0xff) * ta255 + ((b >> 16) & 0xff) * ba255 + half) / ra255;
+            final int g = (((t >> 8) & 0xff) * ta255 + ((b >> 8) & 0xff) * ba255 + half) / ra255;
+            final int bl = ((t & 0xff) * ta255 + (b & 0xff) * ba255 + half) / ra255;
+            bottom[i] = (((ra255 + 127) / 255) << 24) | (r << 16) | (g << 8) | bl;
         }
-        return alphas;
     }
 
     /**
-     * Make a table of rounded alpha values without anti-aliasing.
+     * Composites one image over another, in place, but only where the image
+     * underneath is opaque. Both arrays hold unpremultiplied ARGB pixels.
      *
-     * @param boxSize the width and height of the pen
-     * @return a table of alpha values for drawing a pen of the specified size,
-     * with no antialiasing
+     * @param top the image to draw on top; overwritten
+     * @param bottom the image that the result is clipped to
      */
-    private static int[][] makeNonAATable(int boxSize) {
-        int box2 = boxSize / 2;
-        int boxLimit = boxSize - box2;
-        int radius = box2 * boxLimit;
-        int[][] alphas = new int[boxSize][boxSize];
-        for (int y = 0; y < boxSize; ++y) {
-            int[] row = alphas[y];
-            int dy = y - box2;
-            dy *= dy;
-            for (int x = 0; x < boxSize; ++x) {
-                int dx = x - box2;
-                dx *= dx;
-                int dist = dx + dy;
-                if (dist <= radius) {
-                    row[x] = 255;
-                }
+    private static void dstAtop(int[] top, int[] bottom) {
+        for (int i = 0; i < top.length; ++i) {
+            final int b = bottom[i];
+            final int ba = b >>> 24;
+            if (ba == 0) {
+                top[i] = 0;
+                continue;
             }
+            final int t = top[i];
+            final int ta = t >>> 24;
+            final int ba1 = 255 - ta;
+            final int r = (((t >> 16) & 0xff) * ta + ((b >> 16) & 0xff) * ba1 + 127) / 255;
+            final int g = (((t >> 8) & 0xff) * ta + ((b >> 8) & 0xff) * ba1 + 127) / 255;
+            final int bl = ((t & 0xff) * ta + (b & 0xff) * ba1 + 127) / 255;
+            top[i] = (ba << 24) | (r << 16) | (g << 8) | bl;
         }
-        return alphas;
     }
 
-    static void filterBlockRound(int[] srcImage, int[] dstImage, int width, int height, int boxSize, boolean invert, int argb, int y0, int rows, int[][] alphas) {
-        int box2 = boxSize / 2;
-        int boxLimit = boxSize - box2;
-
-        final int A_COMP = (argb >>> 24);
-        final int RGB_COMP = argb & 0xffffff;
-
-        rows += y0;
-        for (int y = y0; y < rows; ++y) {
-            final int destRow = y * width;
-            for (int x = 0; x < width; ++x) {
-
-                int by0 = Math.max(y - box2, 0);
-                int by1 = Math.min(y + boxLimit, height);
-                int bx0 = Math.max(x - box2, 0);
-                int bx1 = Math.min(x + boxLimit, width);
-
-                int alpha;
-                if (invert) {
-                    alpha = 255;
-                    for (int i = by0; i < by1; ++i) {
-                        final int rowOffset = i * width;
-                        final int last = rowOffset + bx1;
-                        final int[] aRow = alphas[i - y + box2];
-                        for (int j = rowOffset + bx0; j < last; ++j) {
-                            final int aRound = aRow[j - rowOffset - x + box2];
-                            if (aRound == 0) {
-                                continue;
-                            }
-                            int aSrc = (srcImage[j] >>> 24);
-                            aSrc = 255 - ((255 - aSrc) * aRound / 255);
-                            alpha = Math.min(alpha, aSrc);
-                        }
-                        if (alpha == 0) {
-                            break;
-                        }
-                    }
-                    alpha = 255 - alpha;
-                } else {
-                    alpha = 0;
-                    for (int i = by0; i < by1; ++i) {
-                        final int rowOffset = i * width;
-                        final int last = rowOffset + bx1;
-                        final int[] aRow = alphas[i - y + box2];
-                        for (int j = rowOffset + bx0; j < last; ++j) {
-                            final int aRound = aRow[j - rowOffset - x + box2];
-                            if (aRound == 0) {
-                                continue;
-                            }
-                            int aSrc = (srcImage[j] >>> 24);
-                            if (aRound < 255) {
-                                aSrc = aSrc * aRound / 255;
-                            }
-                            alpha = Math.max(alpha, aSrc);
-                        }
-                        if (alpha == 255) {
-                            break;
-                        }
-                    }
-                }
-
-                if (alpha > 0) {
-                    alpha = (alpha * A_COMP) / 255;
-                    dstImage[destRow + x] = RGB_COMP | (alpha << 24);
-                } else {
-                    dstImage[destRow + x] = RGB_COMP;
+    /**
+     * Processes a range of rows or columns, in parallel if the amount of work
+     * justifies it.
+     */
+    private static void split(int count, int pixels, Block block) {
+        if (pixels > Tuning.PER_IMAGE && count > 1) {
+            SplitJoin sj = SplitJoin.getInstance();
+            final int n = Math.min(count, sj.getIdealSplitCount());
+            final int perTask = count / n;
+            final int remainder = count - n * perTask;
+            Runnable[] units = new Runnable[n];
+            int start = 0;
+            for (int i = 0; i < n; ++i) {
+                int size = perTask;
+                if (i < remainder) {
+                    ++size;
                 }
+                final int s = start;
+                final int e = start + size;
+                units[i] = () -> block.process(s, e);
+                start += size;
             }
+            sj.runUnchecked(units);
+        } else {
+            block.process(0, count);
         }
     }
+
+    @FunctionalInterface
+    private interface Block {
+
+        void process(int start, int end);
+    }
 }
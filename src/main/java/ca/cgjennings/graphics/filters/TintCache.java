@@ -8,6 +8,17 @@ import java.awt.image.BufferedImage;
  * recent result, and if a tinted image is requested with the same parameters it
  * returns the cached version instead of reapplying the filter.
  *
+ * <p>
+ * When the filter is one of the standard tinting filters ({@link TintFilter},
+ * {@link TintOverlayFilter}, or {@link ReplaceHueSaturationFilter}), results
+ * are also stored in a cache that is shared by every tint cache in the
+ * application. Moving back and forth between a set of factors, or tinting the
+ * same image with the same factors from several tint caches, then reuses the
+ * earlier results. To make sharing possible, the factors are rounded to a
+ * small fixed step (well below a visible difference) before filtering, and
+ * the returned image is shared, so it must not be modified. The total size of
+ * the shared images is limited; see {@link #setSharedCacheLimit}.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  */
 public class TintCache {
@@ -16,6 +27,8 @@ public class TintCache {
     protected BufferedImage source;
     protected BufferedImage cache;
     protected float h, s, b;
+    // true if cache is shared, so it cannot be used as a filter destination
+    private boolean shared;
 
     public TintCache(TintingFilter filter) {
         this(filter, null);
@@ -44,10 +57,17 @@ public class TintCache {
         final float fs = filter.getSFactor();
         final float fb = filter.getBFactor();
         if (cache == null || h != fh || s != fs || b != fb) {
-            if (cache == null) {
-                cache = ImageUtilities.createCompatibleIntRGBFormat(source);
+            final Class<? extends TintingFilter> type = filter.getClass();
+            if (SharedTintCache.isShareable(type)) {
+                cache = SharedTintCache.get(source, type, fh, fs, fb);
+                shared = true;
+            } else {
+                if (cache == null || shared) {
+                    cache = ImageUtilities.createCompatibleIntRGBFormat(source);
+                    shared = false;
+                }
+                filter.filter(source, cache);
             }
-            filter.filter(source, cache);
             h = fh;
             s = fs;
             b = fb;
@@ -115,4 +135,40 @@ public class TintCache {
     public boolean isIdentity() {
         return filter.isIdentity();
     }
+
+    /**
+     * Sets the maximum total size of the tinted images kept in the cache that
+     * is shared by all tint caches. When the limit is exceeded, the least
+     * recently used images are discarded. Setting a limit of 0 disables the
+     * shared cache. The default limit is 48 MiB.
+     *
+     * @param bytes the new limit, in bytes
+     * @throws IllegalArgumentException if the limit is negative
+     * @since 3.4
+     */
+    public static void setSharedCacheLimit(long bytes) {
+        SharedTintCache.setLimit(bytes);
+    }
+
+    /**
+     * Returns the maximum total size of the tinted images kept in the cache
+     * that is shared by all tint caches.
+     *
+     * @return the limit, in bytes
+     * @since 3.4
+     */
+    public static long getSharedCacheLimit() {
+        return SharedTintCache.getLimit();
+    }
+
+    /**
+     * Discards all of the images in the cache that is shared by all tint
+     * caches. Tint caches that are currently holding a result keep it until
+     * their factors or image change.
+     *
+     * @since 3.4
+     */
+    public static void clearSharedCache() {
+        SharedTintCache.clear();
+    }
 }
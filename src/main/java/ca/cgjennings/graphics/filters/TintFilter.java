@@ -40,62 +40,112 @@ public class TintFilter extends TintOverlayFilter {
     }
 
     public int adjustColor(int argb) {
-        int newrgb = argb;
-        int alpha = newrgb & 0xff000000;
-        float[] newHsb = new float[3];
-
-        if (alpha != 0) {
-            Color.RGBtoHSB(
-                    (newrgb & 0xff0000) >> 16,
-                    (newrgb & 0xff00) >> 8,
-                    (newrgb & 0xff),
-                    newHsb);
-            newHsb[0] += hFactor;
-            newHsb[1] *= sFactor;
-            if (newHsb[1] > 1f) {
-                newHsb[1] = 1f;
-            }
-            newHsb[2] *= bFactor;
-            if (newHsb[2] > 1f) {
-                newHsb[2] = 1f;
-            }
-
-            newrgb = Color.HSBtoRGB(newHsb[0], newHsb[1], newHsb[2]);
-            argb = (newrgb & 0xffffff) | alpha;
+        if ((argb & 0xff000000) == 0) {
+            return argb;
         }
-        return argb;
+        return tint(argb, hFactor, sFactor, bFactor);
     }
 
     @Override
     public void filterPixels(int[] argb, int start, int end) {
-        float[] newHsb = new float[3];
-
+        final float h = hFactor, s = sFactor, b = bFactor;
         for (int p = start; p < end; ++p) {
-            int newrgb = argb[p];
-            int alpha = newrgb & 0xff000000;
-
-            if (alpha != 0) {
-                Color.RGBtoHSB(
-                        (newrgb & 0xff0000) >> 16,
-                        (newrgb & 0xff00) >> 8,
-                        (newrgb & 0xff),
-                        newHsb);
-                newHsb[0] += hFactor;
-                newHsb[1] *= sFactor;
-                if (newHsb[1] > 1f) {
-                    newHsb[1] = 1f;
-                }
-                newHsb[2] *= bFactor;
-                if (newHsb[2] > 1f) {
-                    newHsb[2] = 1f;
-                }
-
-                newrgb = Color.HSBtoRGB(newHsb[0], newHsb[1], newHsb[2]);
-                argb[p] = (newrgb & 0xffffff) | alpha;
+            final int rgb = argb[p];
+            if ((rgb & 0xff000000) != 0) {
+                argb[p] = tint(rgb, h, s, b);
             }
         }
     }
 
+    /**
+     * Tints a single pixel. The result is exactly the same as converting the
+     * pixel with {@link Color#RGBtoHSB}, adjusting the components, and
+     * converting back with {@link Color#HSBtoRGB}, but the conversions are
+     * done inline, the intermediate array is not needed, and the hue is not
+     * computed when the adjusted saturation is 0.
+     *
+     * @param argb the pixel to tint
+     * @param hFactor the amount to add to the hue
+     * @param sFactor the factor to multiply the saturation by
+     * @param bFactor the factor to multiply the brightness by
+     * @return the tinted pixel, with the original alpha
+     */
+    static int tint(int argb, float hFactor, float sFactor, float bFactor) {
+        final int r = (argb >> 16) & 0xff;
+        final int g = (argb >> 8) & 0xff;
+        final int b = argb & 0xff;
+        int cmax = (r > g) ? r : g;
+        if (b > cmax) {
+            cmax = b;
+        }
+        int cmin = (r < g) ? r : g;
+        if (b < cmin) {
+            cmin = b;
+        }
+
+        float bri = ((float) cmax) / 255.0f * bFactor;
+        if (bri > 1f) {
+            bri = 1f;
+        }
+        final float sat0 = cmax != 0 ? ((float) (cmax - cmin)) / ((float) cmax) : 0f;
+        float sat = sat0 * sFactor;
+        if (sat > 1f) {
+            sat = 1f;
+        }
+
+        if (sat == 0f) {
+            final int v = (int) (bri * 255.0f + 0.5f);
+            return (argb & 0xff000000) | (v << 16) | (v << 8) | v;
+        }
+
+        float hue;
+        final float range = (float) (cmax - cmin);
+        if (r == cmax) {
+            hue = ((float) (cmax - b)) / range - ((float) (cmax - g)) / range;
+        } else if (g == cmax) {
+            hue = 2.0f + ((float) (cmax - r)) / range - ((float) (cmax - b)) / range;
+        } else {
+            hue = 4.0f + ((float) (cmax - g)) / range - ((float) (cmax - r)) / range;
+        }
+        hue = hue / 6.0f;
+        if (hue < 0) {
+            hue = hue + 1.0f;
+        }
+        hue += hFactor;
+
+        final float h = (hue - (float) Math.floor(hue)) * 6.0f;
+        final float f = h - (float) Math.floor(h);
+        final int v = (int) (bri * 255.0f + 0.5f);
+        final int p = (int) (bri * (1.0f - sat) * 255.0f + 0.5f);
+        final int q = (int) (bri * (1.0f - sat * f) * 255.0f + 0.5f);
+        final int t = (int) (bri * (1.0f - (sat * (1.0f - f))) * 255.0f + 0.5f);
+        final int rgb;
+        switch ((int) h) {
+            case 0:
+                rgb = (v << 16) | (t << 8) | p;
+                break;
+            case 1:
+                rgb = (q << 16) | (v << 8) | p;
+                break;
+            case 2:
+                rgb = (p << 16) | (v << 8) | t;
+                break;
+            case 3:
+                rgb = (p << 16) | (q << 8) | v;
+                break;
+            case 4:
+                rgb = (t << 16) | (p << 8) | v;
+                break;
+            case 5:
+                rgb = (v << 16) | (p << 8) | q;
+                break;
+            default:
+                rgb = 0;
+                break;
+        }
+        return (argb & 0xff000000) | rgb;
+    }
+
     @Override
     public boolean isIdentity() {
         return identity;
@@ -141,32 +191,12 @@ public class TintFilter extends TintOverlayFilter {
         }
 
         public void filterPixels(int[] argb) {
-            float[] newHsb = new float[3];
-            float sFactor = this.sFactor * sScale;
-            float bFactor = this.bFactor * bScale;
-
+            final float sFactor = this.sFactor * sScale;
+            final float bFactor = this.bFactor * bScale;
             for (int p = 0; p < argb.length; ++p) {
-                int newrgb = argb[p];
-                int alpha = newrgb & 0xff000000;
-
-                if (alpha != 0) {
-                    Color.RGBtoHSB(
-                            (newrgb & 0xff0000) >> 16,
-                            (newrgb & 0xff00) >> 8,
-                            (newrgb & 0xff),
-                            newHsb);
-                    newHsb[0] += hFactor;
-                    newHsb[1] *= sFactor;
-                    if (newHsb[1] > 1f) {
-                        newHsb[1] = 1f;
-                    }
-                    newHsb[2] *= bFactor;
-                    if (newHsb[2] > 1f) {
-                        newHsb[2] = 1f;
-                    }
-
-                    newrgb = Color.HSBtoRGB(newHsb[0], newHsb[1], newHsb[2]);
-                    argb[p] = (newrgb & 0xffffff) | alpha;
+                final int rgb = argb[p];
+                if ((rgb & 0xff000000) != 0) {
+                    argb[p] = tint(rgb, hFactor, sFactor, bFactor);
                 }
             }
         }
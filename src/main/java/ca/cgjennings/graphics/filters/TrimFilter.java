@@ -1,7 +1,9 @@
 package ca.cgjennings.graphics.filters;
 
-import java.awt.Graphics2D;
+import ca.cgjennings.algo.SplitJoin;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Automatically crops an image by trimming off edges that fail to satisfy a
@@ -77,58 +79,135 @@ public final class TrimFilter extends AbstractImageFilter {
      * trimmed; or {@code null} if the entire image is trimmed
      */
     @Override
-    @SuppressWarnings("empty-statement")
     public BufferedImage filter(BufferedImage sourceImage, BufferedImage ignoredDestination) {
+        final Rectangle r = getTrimmedBounds(sourceImage);
+        if (r == null) {
+            return null;
+        }
+        if (r.width == sourceImage.getWidth() && r.height == sourceImage.getHeight()) {
+            // nothing to trim
+            return sourceImage;
+        }
+
+        final int type = sourceImage.getTransparency() == BufferedImage.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        final BufferedImage trimmedImage = new BufferedImage(r.width, r.height, type);
+        setARGB(trimmedImage, getARGB(sourceImage, r.x, r.y, r.width, r.height, null));
+        return trimmedImage;
+    }
+
+    /**
+     * Returns the bounds of the part of an image that would be left after
+     * trimming, without copying it. A caller that does not need a separate
+     * copy can pass the result to {@link BufferedImage#getSubimage} instead of
+     * calling {@link #filter}. If no edges would be trimmed, the bounds of the
+     * entire image are returned. If the entire image would be trimmed, returns
+     * {@code null}.
+     *
+     * <p>
+     * Rows are scanned from each edge towards the centre and scanning stops
+     * as soon as each bound is known. Large images are scanned in parallel.
+     *
+     * @param sourceImage the image to find the trimmed bounds of
+     * @return the bounds of the untrimmed part of the image, or {@code null}
+     * @throws NullPointerException if the image is {@code null}
+     * @since 3.4
+     */
+    public Rectangle getTrimmedBounds(BufferedImage sourceImage) {
+        final int w = sourceImage.getWidth();
+        final int h = sourceImage.getHeight();
+
         // Special case: if the test requires an image with transparency,
         // check if the image is opaque, and if so return it immediately.
         if ((mask & 0xff000000) != (condition & 0xff000000)) {
             if (sourceImage.getTransparency() == BufferedImage.OPAQUE) {
-                return sourceImage;
+                return new Rectangle(0, 0, w, h);
             }
         }
 
-        int w = sourceImage.getWidth();
-        int h = sourceImage.getHeight();
-        int tl, tr, tb, tt;
-
-        int[] pixels = new int[Math.max(sourceImage.getWidth(), sourceImage.getHeight())];
-
-        // find trim bounds: could easily be optimized if needed
-        for (tt = 0; tt < h && isTrimmableRow(sourceImage, tt, pixels); ++tt);
-        if (tt >= h) {
+        final int top = findRow(sourceImage, 0, h, false);
+        if (top < 0) {
             return null;
         }
-        for (tb = h - 1; tb >= 0 && isTrimmableRow(sourceImage, tb, pixels); --tb);
+        final int bottom = findRow(sourceImage, top, h, true);
 
-        for (tl = 0; tl < w && isTrimmableColumn(sourceImage, tl, pixels, tt, tb); ++tl);
-        for (tr = w - 1; tr >= 0 && isTrimmableColumn(sourceImage, tr, pixels, tt, tb); --tr);
-
-        BufferedImage trimmedImage;
-        if (w == tr - tl + 1 && h == tb - tt + 1) {
-            // nothing to trim
-            trimmedImage = sourceImage;
-        } else {
-            w = tr - tl + 1;
-            h = tb - tt + 1;
+        // each row between top and bottom only needs to be checked from
+        // the edges in to the leftmost and rightmost bounds found so far
+        final AtomicInteger left = new AtomicInteger(w);
+        final AtomicInteger right = new AtomicInteger(-1);
+        final SplitJoin sj = SplitJoin.getInstance();
+        sj.runRange(top, bottom + 1, w / 4f, (y0, y1) -> {
+            final int[] pixels = new int[w];
+            for (int y = y0; y < y1; ++y) {
+                final int l = left.get();
+                if (l > 0) {
+                    getARGB(sourceImage, 0, y, l, 1, pixels);
+                    for (int x = 0; x < l; ++x) {
+                        if ((pixels[x] & mask) != condition) {
+                            left.accumulateAndGet(x, Math::min);
+                            break;
+                        }
+                    }
+                }
+                final int r = Math.max(right.get(), left.get() - 1);
+                if (r < w - 1) {
+                    final int n = w - 1 - r;
+                    getARGB(sourceImage, r + 1, y, n, 1, pixels);
+                    for (int i = n - 1; i >= 0; --i) {
+                        if ((pixels[i] & mask) != condition) {
+                            right.accumulateAndGet(r + 1 + i, Math::max);
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+        return new Rectangle(left.get(), top, right.get() - left.get() + 1, bottom - top + 1);
+    }
 
-            int type = BufferedImage.TYPE_INT_ARGB;
+    /**
+     * Returns {@code true} if every pixel in an image satisfies the trim
+     * test, so that the entire image would be trimmed away. The scan stops at
+     * the first pixel that fails the test.
+     *
+     * @param sourceImage the image to test
+     * @return {@code true} if {@link #filter} would return {@code null}
+     * @throws NullPointerException if the image is {@code null}
+     * @since 3.4
+     */
+    public boolean isEntirelyTrimmable(BufferedImage sourceImage) {
+        if ((mask & 0xff000000) != (condition & 0xff000000)) {
             if (sourceImage.getTransparency() == BufferedImage.OPAQUE) {
-                type = BufferedImage.TYPE_INT_RGB;
+                return false;
             }
+        }
+        return findRow(sourceImage, 0, sourceImage.getHeight(), false) < 0;
+    }
 
-            trimmedImage = new BufferedImage(w, h, type);
-            Graphics2D g = trimmedImage.createGraphics();
-            try {
-                // Graphics implementation seems to interpret the sx2/sy2/dx2/dy2
-                // parameters as if they were widths and heights (w=sx2-sx1+1) instead
-                // of corners; hence we define rectangles one larger in both dimensions
-                // for both source and dest as otherwise the copied area is too small
-                g.drawImage(sourceImage, 0, 0, w, h, tl, tt, tr + 1, tb + 1, null);
-            } finally {
-                g.dispose();
+    /**
+     * Returns the first row in the range {@code [y0, y1)} that is not
+     * trimmable, or -1 if all are. If {@code reverse} is {@code true}, the
+     * last such row is returned instead.
+     */
+    private int findRow(BufferedImage img, int y0, int y1, boolean reverse) {
+        final int w = img.getWidth();
+        // the index, in search order, of the first non-trimmable row found
+        final AtomicInteger found = new AtomicInteger(y1 - y0);
+        SplitJoin.getInstance().runRange(0, y1 - y0, w, (i0, i1) -> {
+            final int[] pixels = new int[w];
+            for (int i = i0; i < i1 && i < found.get(); ++i) {
+                final int y = reverse ? y1 - 1 - i : y0 + i;
+                if (!isTrimmableRow(img, y, pixels)) {
+                    found.accumulateAndGet(i, Math::min);
+                    break;
+                }
             }
+        });
+        final int i = found.get();
+        if (i == y1 - y0) {
+            return -1;
         }
-        return trimmedImage;
+        return reverse ? y1 - 1 - i : y0 + i;
     }
 
     private boolean isTrimmableRow(BufferedImage img, int row, int[] pixels) {
@@ -143,17 +222,4 @@ public final class TrimFilter extends AbstractImageFilter {
         }
         return true;
     }
-
-    private boolean isTrimmableColumn(BufferedImage img, int col, int[] pixels, int y0, int y1) {
-        final int mask = this.mask;
-        final int condition = this.condition;
-        final int h = y1 - y0 + 1; // only check part of column between trimmed top and bottom
-        getARGB(img, col, y0, 1, h, pixels);
-        for (int i = 0; i < h; ++i) { // y = y0 + i
-            if ((pixels[i] & mask) != condition) {
-                return false;
-            }
-        }
-        return true;
-    }
 }
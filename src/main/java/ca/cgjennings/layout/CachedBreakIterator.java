@@ -0,0 +1,188 @@
+package ca.cgjennings.layout;
+
+import java.text.BreakIterator;
+import java.text.CharacterIterator;
+import java.util.Arrays;
+
+/**
+ * Base class for break iterators that navigate over a precomputed array of
+ * break positions instead of analyzing the text on demand.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+abstract class CachedBreakIterator extends BreakIterator {
+
+    /**
+     * The break positions, in ascending order, followed by
+     * {@code Integer.MAX_VALUE}.
+     */
+    int[] buffer;
+    /**
+     * The index of the last break position in the buffer.
+     */
+    int last;
+    /**
+     * The index of the current break position in the buffer.
+     */
+    int current;
+
+    /**
+     * Returns the breaks that a break iterator finds in the specified text, in
+     * the form used by this class. The returned array contains every break
+     * position in order, followed by {@code Integer.MAX_VALUE}. If the
+     * supplied buffer is large enough to hold the result, it is filled in and
+     * returned; otherwise a new array of exactly the required length is
+     * returned.
+     *
+     * @param bi the break iterator that determines the breaks
+     * @param text the text to analyze
+     * @param buffer an optional array to reuse, may be {@code null}
+     * @return an array of break positions terminated by
+     * {@code Integer.MAX_VALUE}
+     */
+    static int[] findBreaks(BreakIterator bi, CharacterIterator text, int[] buffer) {
+        int length = text.getEndIndex() - text.getBeginIndex() + 2;
+        final boolean exact = buffer == null;
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[length];
+        }
+
+        // get all breaks in the text in one go
+        bi.setText(text);
+        buffer[0] = bi.first();
+        int i, pos;
+        for (i = 1; (pos = bi.next()) != BreakIterator.DONE; ++i) {
+            buffer[i] = pos;
+        }
+        buffer[i] = Integer.MAX_VALUE;
+        if (exact && i + 1 < buffer.length) {
+            buffer = Arrays.copyOf(buffer, i + 1);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the index of the last break in a buffer returned from
+     * {@link #findBreaks}.
+     *
+     * @param buffer the break buffer
+     * @return the index of the last break position
+     */
+    static int lastBreakIndex(int[] buffer) {
+        int i = 0;
+        while (buffer[i] != Integer.MAX_VALUE) {
+            ++i;
+        }
+        return i - 1;
+    }
+
+    @Override
+    public int current() {
+        return buffer[current];
+    }
+
+    @Override
+    public int first() {
+        current = 0;
+        return buffer[0];
+    }
+
+    @Override
+    public int last() {
+        current = last;
+        return buffer[last];
+    }
+
+    @Override
+    public int following(int offset) {
+        if (current < last && buffer[current] <= offset) {
+            if (buffer[current + 1] > offset) {
+                return buffer[++current];
+            }
+        }
+
+        int match = Arrays.binarySearch(buffer, 0, last + 1, offset);
+
+        if (match < 0) {
+            match = -match - 1;
+            if (match > last) {
+                current = last;
+                return BreakIterator.DONE;
+            }
+            current = match;
+            return buffer[match];
+        } else {
+            if (match > last) {
+                current = last;
+                return BreakIterator.DONE;
+            }
+            current = match;
+            return buffer[match];
+        }
+    }
+
+    @Override
+    public int preceding(int offset) {
+        if (current > 0 && buffer[current] >= offset) {
+            if (buffer[current - 1] < offset) {
+                return buffer[--current];
+            }
+        }
+
+        int match = Arrays.binarySearch(buffer, 0, last + 1, offset);
+
+        if (match < 0) {
+            match = (-match - 1) - 1;
+            if (match < 0) {
+                current = 0;
+                return BreakIterator.DONE;
+            }
+            current = match;
+            return buffer[match];
+        } else {
+            if (--match < 0) {
+                current = 0;
+                return BreakIterator.DONE;
+            }
+            current = match;
+            return buffer[match];
+        }
+    }
+
+    @Override
+    public int next(int n) {
+        if (n > 0) {
+            if (current + n > last) {
+                current = last;
+                return BreakIterator.DONE;
+            }
+            current += n;
+            return buffer[current];
+        } else if (n < 0) {
+            if (current - n < 0) {
+                current = 0;
+                return BreakIterator.DONE;
+            }
+            current -= n;
+            return buffer[current];
+        }
+        return buffer[current];
+    }
+
+    @Override
+    public int next() {
+        if (current == last) {
+            return BreakIterator.DONE;
+        }
+        return buffer[++current];
+    }
+
+    @Override
+    public int previous() {
+        if (current == 0) {
+            return BreakIterator.DONE;
+        }
+        return buffer[--current];
+    }
+}
@@ -0,0 +1,104 @@
+package ca.cgjennings.layout;
+
+import java.awt.Font;
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedCharacterIterator.Attribute;
+import java.text.AttributedString;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A global cache that maps resolved sets of font attributes to shared
+ * {@link Font} instances. When text is laid out from an attributed string, the
+ * text layout classes create a new font for every run of styled text unless
+ * the run specifies a {@link TextAttribute#FONT} attribute. By resolving the
+ * font attributes of each run to an interned font and attaching it to the
+ * run, the same font instances are reused across lines, fitting passes, and
+ * repaints.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class FontCache {
+
+    private FontCache() {
+    }
+
+    /**
+     * The attributes that determine which font is used to draw a run of text.
+     * Other attributes, such as colour and underlining, are applied by the
+     * layout separately from the font.
+     */
+    static final Set<TextAttribute> FONT_ATTRIBUTES = Set.of(
+            TextAttribute.FAMILY, TextAttribute.WEIGHT, TextAttribute.WIDTH,
+            TextAttribute.POSTURE, TextAttribute.SIZE, TextAttribute.TRANSFORM,
+            TextAttribute.SUPERSCRIPT, TextAttribute.TRACKING,
+            TextAttribute.KERNING, TextAttribute.LIGATURES
+    );
+
+    // the attributes that divide a string into runs for font resolution
+    private static final Set<TextAttribute> RUN_ATTRIBUTES;
+
+    static {
+        final HashSet<TextAttribute> runAttrs = new HashSet<>(FONT_ATTRIBUTES);
+        runAttrs.add(TextAttribute.CHAR_REPLACEMENT);
+        RUN_ATTRIBUTES = Collections.unmodifiableSet(runAttrs);
+    }
+
+    /**
+     * If the cache grows beyond this many fonts, it is cleared.
+     */
+    private static final int MAX_FONTS = 2_048;
+
+    private static final ConcurrentHashMap<TextStyle, Font> fonts = new ConcurrentHashMap<>(64);
+
+    /**
+     * Returns a shared font for the font attributes in the specified attribute
+     * map. Attributes that do not affect the choice of font are ignored.
+     *
+     * @param attributes the attributes to resolve
+     * @return an interned font matching the font attributes
+     */
+    static Font get(Map<? extends Attribute, ?> attributes) {
+        final TextStyle key = new TextStyle(attributes, FONT_ATTRIBUTES);
+        Font font = fonts.get(key);
+        if (font != null) {
+            return font;
+        }
+        if (fonts.size() >= MAX_FONTS) {
+            fonts.clear();
+        }
+        font = new Font(key.getAttributeMap());
+        final Font existing = fonts.putIfAbsent(key, font);
+        return existing == null ? font : existing;
+    }
+
+    /**
+     * Attaches an interned font to each run of the string that has a font
+     * family. This must be called again whenever a font attribute of the
+     * string changes, since the attached font takes precedence over the other
+     * font attributes. Runs without a family are left for the layout to
+     * resolve character by character, and runs that are replaced by graphics
+     * are skipped.
+     *
+     * @param s the string to attach fonts to
+     */
+    static void resolveFonts(AttributedString s) {
+        final AttributedCharacterIterator it = s.getIterator();
+        final int end = it.getEndIndex();
+        int start = it.getBeginIndex();
+        while (start < end) {
+            it.setIndex(start);
+            final int limit = it.getRunLimit(RUN_ATTRIBUTES);
+            final Map<Attribute, Object> attributes = it.getAttributes();
+            if (attributes.get(TextAttribute.FAMILY) != null && attributes.get(TextAttribute.CHAR_REPLACEMENT) == null) {
+                s.addAttribute(TextAttribute.FONT, get(attributes), start, limit);
+            }
+            start = limit;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ca.cgjennings.layout;
+
+import java.text.CharacterIterator;
+
+/**
+ * A break iterator that returns breaks from a precomputed break index instead
+ * of analyzing its text. The markup renderer computes the line break index of
+ * each styled paragraph once, and then reuses it through a single instance of
+ * this class for every layout pass over that paragraph, regardless of changes
+ * to the text's scale or other attributes.
+ *
+ * <p>
+ * The break index must be set before the text, since setting the text does
+ * not trigger any analysis.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class IndexedBreakIterator extends CachedBreakIterator {
+
+    private CharacterIterator text;
+
+    /**
+     * Sets the break index to iterate over. The index must have been created
+     * for the text that will subsequently be set on this iterator.
+     *
+     * @param breakIndex an array of break positions, as returned by
+     * {@link CachedBreakIterator#findBreaks}
+     * @param lastBreak the index of the last break position in the array
+     */
+    void setBreakIndex(int[] breakIndex, int lastBreak) {
+        buffer = breakIndex;
+        last = lastBreak;
+        current = 0;
+    }
+
+    @Override
+    public void setText(CharacterIterator newText) {
+        text = newText;
+    }
+
+    @Override
+    public CharacterIterator getText() {
+        return text;
+    }
+}
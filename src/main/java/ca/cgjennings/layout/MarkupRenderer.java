@@ -192,6 +192,7 @@ public class MarkupRenderer {
         }
         if (!this.pageShape.equals(shape)) {
             this.pageShape = shape;
+            tabulatedShape = null;
             lastLaidOutRectangle = null;
         }
     }
@@ -200,6 +201,28 @@ public class MarkupRenderer {
         return pageShape;
     }
 
+    /**
+     * If the page shape is immutable, this caches a table of its insets for
+     * the most recently laid out rectangle.
+     */
+    private PageShape.TabulatedShape tabulatedShape;
+    private Rectangle2D tabulatedShapeRectangle;
+
+    /**
+     * Returns the shape to use when laying out text in the specified
+     * rectangle: either the page shape, or a tabulated version of it.
+     */
+    private PageShape getLayoutShape(Rectangle2D r) {
+        if (!pageShape.isWorthTabulating()) {
+            return pageShape;
+        }
+        if (tabulatedShape == null || tabulatedShape.getSource() != pageShape || !r.equals(tabulatedShapeRectangle)) {
+            tabulatedShape = new PageShape.TabulatedShape(pageShape, r);
+            tabulatedShapeRectangle = (Rectangle2D) r.clone();
+        }
+        return tabulatedShape;
+    }
+
     /**
      * The internal instance of {@link GraphicStyleFactory} used to create
      * inline images.
@@ -974,6 +997,7 @@ public class MarkupRenderer {
         TransformAttribute a = new TransformAttribute(at);
         for (int i = 0; i < paragraphs.length; ++i) {
             paragraphs[i].addAttribute(TextAttribute.TRANSFORM, a);
+            FontCache.resolveFonts(paragraphs[i]);
         }
 
         at = AffineTransform.getScaleInstance(1d / normalizedScaleFactor, 1d / normalizedScaleFactor);
@@ -1040,6 +1064,7 @@ public class MarkupRenderer {
         double rightMargin = r.getX() + rectWidth;
 
         PageShape shape = restrictToSingleLine ? PageShape.RECTANGLE_SHAPE : pageShape;
+        PageShape layoutShape = getLayoutShape(r);
 
         double xPosition = r.getX();
         double yPosition = r.getY();
@@ -1057,7 +1082,7 @@ public class MarkupRenderer {
 
         ArrayList<TextLayout> layouts = new ArrayList<>(1);
         ArrayList<Float> penPositions = new ArrayList<>(1);
-        final BreakIterator breakIterator = createBreakIterator();
+        final BreakIterator breakIterator = USE_FAST_LINE_BREAKER ? getIndexedBreakIterator() : createBreakIterator();
 
         for (int line = 0; line < paragraphs.length; ++line) {
             int tabCurrent = 0;
@@ -1066,6 +1091,9 @@ public class MarkupRenderer {
 
             StyledParagraph paragraph = paragraphs[line];
             AttributedCharacterIterator styledText = paragraph.getIterator();
+            if (breakIterator instanceof IndexedBreakIterator) {
+                paragraph.installBreakIndex((IndexedBreakIterator) breakIterator);
+            }
             LineBreakMeasurer measurer = new LineBreakMeasurer(styledText, breakIterator, frc);
 
             // determine the initial ascent/descent for the page shaper
@@ -1087,8 +1115,8 @@ public class MarkupRenderer {
                 boolean lineCompleted = false;
                 double maxAdvance = 0f;
 
-                double shapedX1 = pageShape.getShapedX1(leftMargin, yPosition, maxAscent, maxDescent);
-                double shapedX2 = pageShape.getShapedX2(rightMargin, yPosition, maxAscent, maxDescent);
+                double shapedX1 = layoutShape.getShapedX1(leftMargin, yPosition, maxAscent, maxDescent);
+                double shapedX2 = layoutShape.getShapedX2(rightMargin, yPosition, maxAscent, maxDescent);
                 if (!restrictToSingleLine) {
                     wrappingMargin = shapedX2;
                 }
@@ -2372,9 +2400,29 @@ public class MarkupRenderer {
         public int getAlignment() {
             return alignment;
         }
+
+        /**
+         * Sets the line break index of this paragraph on an indexed break
+         * iterator, computing the index if this is the first time it is
+         * needed. Since the break positions depend only on the characters of
+         * the paragraph, the index is reused for every layout pass.
+         */
+        void installBreakIndex(IndexedBreakIterator bi) {
+            if (breakIndex == null) {
+                if (breakAnalyzer == null) {
+                    breakAnalyzer = createBreakAnalyzer(Locale.getDefault());
+                }
+                breakIndex = CachedBreakIterator.findBreaks(breakAnalyzer, getIterator(), null);
+                lastBreak = CachedBreakIterator.lastBreakIndex(breakIndex);
+            }
+            bi.setBreakIndex(breakIndex, lastBreak);
+        }
+
         private boolean titleLine;
         private int lineTightness;
         private int alignment;
+        private int[] breakIndex;
+        private int lastBreak;
     }
 
     /**
@@ -2425,13 +2473,7 @@ public class MarkupRenderer {
     }
 
     private BreakIterator createBreakIterator(Locale loc) {
-        BreakIterator bi;
-
-        if (USE_PATCHED_LINE_BREAKER) {
-            bi = new LineBreakIterator(loc);
-        } else {
-            bi = BreakIterator.getLineInstance(loc);
-        }
+        BreakIterator bi = createBreakAnalyzer(loc);
 
         if (USE_FAST_LINE_BREAKER) {
             bi = new FastBreakIterator(bi);
@@ -2439,6 +2481,32 @@ public class MarkupRenderer {
 
         return bi;
     }
+
+    /**
+     * Creates the break iterator that performs the actual analysis of line
+     * break opportunities.
+     */
+    private BreakIterator createBreakAnalyzer(Locale loc) {
+        if (USE_PATCHED_LINE_BREAKER) {
+            return new LineBreakIterator(loc);
+        }
+        return BreakIterator.getLineInstance(loc);
+    }
+
+    /**
+     * Returns the shared break iterator used to feed precomputed paragraph
+     * break indices to the line break measurer.
+     */
+    private IndexedBreakIterator getIndexedBreakIterator() {
+        if (indexedBreakIterator == null) {
+            indexedBreakIterator = new IndexedBreakIterator();
+        }
+        return indexedBreakIterator;
+    }
+
+    private IndexedBreakIterator indexedBreakIterator;
+    // analyzes the text of paragraphs to create their break indices
+    private BreakIterator breakAnalyzer;
     public static boolean USE_PATCHED_LINE_BREAKER = true;
     /**
      * Warning: the fast line breaker is buggy; it works in most cases but
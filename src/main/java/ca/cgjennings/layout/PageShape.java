@@ -15,6 +15,13 @@ import java.awt.geom.Rectangle2D;
  * inset values always reduce the margins; negative values increase them. A zero
  * inset leaves the margin unchanged.
  *
+ * <p>
+ * A shape whose insets never change can declare this by overriding
+ * {@link #isImmutable()}. When laying out text, the markup renderer may then
+ * sample the shape once into a {@link TabulatedShape} instead of querying it
+ * for every line of every layout pass. This is particularly helpful for shapes
+ * that are expensive to query, such as shapes implemented in script code.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  */
 public class PageShape {
@@ -35,6 +42,28 @@ public class PageShape {
         return 0;
     }
 
+    /**
+     * Returns {@code true} if this shape always returns the same insets for
+     * the same arguments. The base class returns {@code false}; subclasses
+     * whose geometry is fixed at construction should override this to return
+     * {@code true}.
+     *
+     * @return {@code true} if the insets of this shape never change
+     * @since 3.4
+     */
+    public boolean isImmutable() {
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this shape is immutable and querying it is
+     * likely to be more expensive than looking up a precomputed table of
+     * insets.
+     */
+    boolean isWorthTabulating() {
+        return isImmutable();
+    }
+
     double getShapedX1(double x1, double y, double ascent, double descent) {
         return x1 + getLeftInset(y, y + ascent + descent);
     }
@@ -91,6 +120,16 @@ public class PageShape {
         @Override
         public void debugDraw(Graphics2D g, Rectangle2D rect) {
         }
+
+        @Override
+        public boolean isImmutable() {
+            return true;
+        }
+
+        @Override
+        boolean isWorthTabulating() {
+            return false;
+        }
     };
 
     /**
@@ -117,6 +156,16 @@ public class PageShape {
             return x2;
         }
 
+        @Override
+        public boolean isImmutable() {
+            return true;
+        }
+
+        @Override
+        boolean isWorthTabulating() {
+            return false;
+        }
+
         @Override
         public void debugDraw(Graphics2D g, Rectangle2D rect) {
             Line2D.Double li = new Line2D.Double(
@@ -193,6 +242,11 @@ public class PageShape {
             }
         }
 
+        @Override
+        public boolean isImmutable() {
+            return top.isImmutable() && bottom.isImmutable();
+        }
+
         @Override
         public void debugDraw(Graphics2D g, Rectangle2D rect) {
             Shape oldClip = g.getClip();
@@ -273,6 +327,16 @@ public class PageShape {
             }
         }
 
+        @Override
+        public boolean isImmutable() {
+            return true;
+        }
+
+        @Override
+        boolean isWorthTabulating() {
+            return false;
+        }
+
         @Override
         public void debugDraw(Graphics2D g, Rectangle2D rect) {
             Line2D.Double li = new Line2D.Double(
@@ -372,6 +436,11 @@ public class PageShape {
                     s2.getRightInset(y1, y2)
             );
         }
+
+        @Override
+        public boolean isImmutable() {
+            return s1.isImmutable() && s2.isImmutable();
+        }
     }
 
     /**
@@ -477,5 +546,175 @@ public class PageShape {
         public double getRightInset(double y1, double y2) {
             return getInset(y1, y2, rightSlice);
         }
+
+        @Override
+        public boolean isImmutable() {
+            return true;
+        }
+
+        @Override
+        boolean isWorthTabulating() {
+            return false;
+        }
+    }
+
+    /**
+     * A {@code PageShape} that samples another, immutable shape into a table
+     * of insets indexed by Y-position. The table covers a layout rectangle
+     * divided into equal horizontal cells; for each cell it records the inset
+     * over the entire cell, provided that the inset is constant over the cell.
+     * Queries that span two or more cells are answered from the table. Queries
+     * that touch a cell in which the inset changes (a segment boundary of the
+     * source shape), that fall within a single cell, or that extend outside of
+     * the rectangle are passed on to the source shape. As a result, the insets
+     * returned by a tabulated shape are always identical to those of its
+     * source.
+     *
+     * <p>
+     * The markup renderer automatically uses a tabulated shape when laying out
+     * text with a shape that {@linkplain PageShape#isImmutable() declares
+     * itself to be immutable}.
+     *
+     * @since 3.4
+     */
+    public static class TabulatedShape extends PageShape {
+
+        private final PageShape source;
+        private final double top, bottom, cellSize;
+        private final int numCells;
+        // the inset over each cell, or NaN if the inset varies within the cell
+        private final double[] leftCells;
+        private final double[] rightCells;
+
+        private static final int MAX_CELLS = 11 * 1200; // based on 11" paper * 1200DPI
+
+        /**
+         * Creates a tabulated shape with one cell per unit of height of the
+         * layout rectangle.
+         *
+         * @param source the shape to sample; it should be immutable
+         * @param r the rectangle that text will be laid out in
+         */
+        public TabulatedShape(PageShape source, Rectangle2D r) {
+            this(source, r, -1);
+        }
+
+        /**
+         * Creates a tabulated shape with the specified number of cells.
+         *
+         * @param source the shape to sample; it should be immutable
+         * @param r the rectangle that text will be laid out in
+         * @param numCells the number of cells, or -1 for one cell per unit of
+         * height
+         */
+        public TabulatedShape(PageShape source, Rectangle2D r, int numCells) {
+            if (source == null) {
+                throw new NullPointerException("source");
+            }
+            this.source = source;
+            if (numCells < 1) {
+                numCells = (int) Math.ceil(r.getHeight());
+            }
+            numCells = Math.max(1, Math.min(numCells, MAX_CELLS));
+            this.numCells = numCells;
+
+            top = r.getY();
+            cellSize = r.getHeight() > 0d ? r.getHeight() / numCells : 1d;
+            bottom = cellBoundary(numCells);
+
+            leftCells = new double[numCells];
+            rightCells = new double[numCells];
+
+            double leftAtA = source.getLeftInset(top, top);
+            double rightAtA = source.getRightInset(top, top);
+            for (int i = 0; i < numCells; ++i) {
+                final double a = cellBoundary(i);
+                final double b = cellBoundary(i + 1);
+                final double leftAtB = source.getLeftInset(b, b);
+                final double rightAtB = source.getRightInset(b, b);
+                leftCells[i] = uniformInset(source.getLeftInset(a, b), leftAtA, leftAtB);
+                rightCells[i] = uniformInset(source.getRightInset(a, b), rightAtA, rightAtB);
+                leftAtA = leftAtB;
+                rightAtA = rightAtB;
+            }
+        }
+
+        private double cellBoundary(int i) {
+            return top + i * cellSize;
+        }
+
+        /**
+         * If the maximum inset over a cell is equal to the inset at both of its
+         * edges, then the maximum inset over any range that includes either
+         * edge is the same as the maximum over the whole cell.
+         */
+        private static double uniformInset(double cellMax, double atA, double atB) {
+            return (cellMax == atA && cellMax == atB) ? cellMax : Double.NaN;
+        }
+
+        private double getInset(double y1, double y2, double[] cells) {
+            if (y1 < top || y2 > bottom) {
+                return Double.NaN;
+            }
+            int i1 = Math.min((int) ((y1 - top) / cellSize), numCells - 1);
+            int i2 = Math.min((int) ((y2 - top) / cellSize), numCells - 1);
+            // correct for rounding so that cell i1 contains y1 and i2 contains y2
+            if (i1 > 0 && y1 < cellBoundary(i1)) {
+                --i1;
+            }
+            if (i2 < numCells - 1 && y2 > cellBoundary(i2 + 1)) {
+                ++i2;
+            }
+            if (i1 >= i2) {
+                return Double.NaN;
+            }
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = i1; i <= i2; ++i) {
+                final double inset = cells[i];
+                if (inset != inset) {
+                    return Double.NaN;
+                }
+                if (inset > max) {
+                    max = inset;
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public double getLeftInset(double y1, double y2) {
+            final double inset = getInset(y1, y2, leftCells);
+            return inset == inset ? inset : source.getLeftInset(y1, y2);
+        }
+
+        @Override
+        public double getRightInset(double y1, double y2) {
+            final double inset = getInset(y1, y2, rightCells);
+            return inset == inset ? inset : source.getRightInset(y1, y2);
+        }
+
+        /**
+         * Returns the shape that was sampled to create this shape.
+         *
+         * @return the source shape
+         */
+        public PageShape getSource() {
+            return source;
+        }
+
+        @Override
+        public void debugDraw(Graphics2D g, Rectangle2D rect) {
+            source.debugDraw(g, rect);
+        }
+
+        @Override
+        public boolean isImmutable() {
+            return source.isImmutable();
+        }
+
+        @Override
+        boolean isWorthTabulating() {
+            return false;
+        }
     }
 }
@@ -3,19 +3,29 @@ package ca.cgjennings.layout;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator.Attribute;
 import java.text.AttributedString;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * A combination of {@code TextAttribute}s that represents a particular style of
  * text (a heading, for example).
  *
+ * <p>
+ * Two styles are equal if they consist of the same attributes with equal
+ * values. Because styles are mutable, a style that is used as a key in a hash
+ * table must not be modified while it is in the table.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  */
 public class TextStyle {
 
     private HashMap<TextAttribute, Object> styles;
+    // cached hash code; 0 if not computed since the last change
+    private int hash;
 
     /**
      * Create a new, empty style.
@@ -42,11 +52,29 @@ public class TextStyle {
         styles.put(attr, styleValue);
     }
 
+    /**
+     * Creates a style from those entries in an attribute map whose keys are
+     * members of the specified set.
+     *
+     * @param attributes the attribute map to copy from
+     * @param filter the attributes to include in the style
+     */
+    TextStyle(Map<? extends Attribute, ?> attributes, Set<TextAttribute> filter) {
+        styles = new HashMap<>(filter.size() * 2);
+        for (Entry<? extends Attribute, ?> entry : attributes.entrySet()) {
+            final Attribute key = entry.getKey();
+            if (filter.contains(key)) {
+                styles.put((TextAttribute) key, entry.getValue());
+            }
+        }
+    }
+
     /**
      * Add a new {@code TextAttribute} to this style.
      */
     public void add(TextAttribute attr, Object styleValue) {
         styles.put(attr, styleValue);
+        hash = 0;
     }
 
     /**
@@ -61,6 +89,7 @@ public class TextStyle {
             }
             styles.put((TextAttribute) listOfAttributesAndStyles[i], listOfAttributesAndStyles[i + 1]);
         }
+        hash = 0;
     }
 
     /**
@@ -68,6 +97,7 @@ public class TextStyle {
      */
     public void add(TextStyle sourceStyle) {
         styles.putAll(sourceStyle.styles);
+        hash = 0;
     }
 
     /**
@@ -83,6 +113,7 @@ public class TextStyle {
      */
     public void remove(TextAttribute attr) {
         styles.remove(attr);
+        hash = 0;
     }
 
     /**
@@ -92,6 +123,27 @@ public class TextStyle {
         return styles.containsKey(attr);
     }
 
+    /**
+     * Returns a shared font instance that matches the font-related attributes
+     * of this style, such as family, size, weight, and posture. Fonts are
+     * interned in a global cache, so equivalent styles return the same font
+     * instance.
+     *
+     * @return a font with the font attributes of this style
+     * @since 3.4
+     */
+    public Font getFont() {
+        return FontCache.get(styles);
+    }
+
+    /**
+     * Returns the attribute map that backs this style. The returned map must
+     * not be modified.
+     */
+    Map<TextAttribute, Object> getAttributeMap() {
+        return styles;
+    }
+
     /**
      * Apply this style to a range of characters in an {@code AttributedString}.
      *
@@ -214,6 +266,31 @@ public class TextStyle {
     public static final TextStyle COLOR_PURPLE = new TextStyle(TextAttribute.FOREGROUND, new Color(0x4a148c));
     public static final TextStyle COLOR_BROWN = new TextStyle(TextAttribute.FOREGROUND, new Color(0x3e2723));
 
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = styles.hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TextStyle)) {
+            return false;
+        }
+        final TextStyle other = (TextStyle) obj;
+        if (hashCode() != other.hashCode()) {
+            return false;
+        }
+        return styles.equals(other.styles);
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder();
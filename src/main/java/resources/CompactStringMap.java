@@ -0,0 +1,361 @@
+package resources;
+
+import java.util.Arrays;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compact map of string keys to string values, used to store the private
+ * keys of a {@link Settings} scope. Game components typically store the same
+ * set of keys in their private settings, so instead of storing an entry object
+ * for every key, each map refers to a shared, immutable table of keys and
+ * stores only an array of values, in the same order. When a new key is added,
+ * the map moves to a table that includes the new key; these transitions are
+ * cached so that maps that define the same keys in the same order end up
+ * sharing the same table. A table only holds weak references to the tables
+ * that extend it, so tables are discarded once no map uses them. Keys and
+ * short values are interned, so repeated strings, such as expansion codes,
+ * are only stored once.
+ *
+ * <p>
+ * Maps with many keys, or that add keys in an order no other map has used
+ * often, switch to a private key table that grows in place.
+ *
+ * <p>
+ * Like {@code HashMap}, the map can store {@code null} values, and it is not
+ * thread safe. The shared key tables are immutable and can be used by any
+ * number of threads.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class CompactStringMap {
+
+    /**
+     * Values longer than this are not interned.
+     */
+    private static final int MAX_INTERNED_LENGTH = 32;
+
+    /**
+     * Stands in for a key that is explicitly mapped to {@code null}.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private KeyTable keys;
+    private Object[] values;
+    private int size;
+    // true if keys is a private table that this map can modify
+    private boolean ownsKeys;
+
+    /**
+     * Creates a new, empty map.
+     */
+    CompactStringMap() {
+        keys = KeyTable.EMPTY;
+        values = new Object[keys.slots.length];
+    }
+
+    /**
+     * Creates a new map with the same entries as a standard map. The keys are
+     * added in sorted order so that maps with the same key set share a key
+     * table regardless of the order of the source map.
+     *
+     * @param source the map to copy
+     * @return a compact copy of the map
+     */
+    static CompactStringMap from(Map<String, String> source) {
+        final String[] sorted = source.keySet().toArray(new String[0]);
+        Arrays.sort(sorted);
+        final CompactStringMap map = new CompactStringMap();
+        for (String key : sorted) {
+            map.put(key, source.get(key));
+        }
+        return map;
+    }
+
+    /**
+     * Returns a {@code HashMap} with the same entries as this map. This is
+     * used when serializing settings, in order to preserve the original
+     * serialized form.
+     *
+     * @return a standard copy of the map
+     */
+    HashMap<String, String> toHashMap() {
+        final HashMap<String, String> map = new HashMap<>(size * 4 / 3 + 1);
+        final String[] slots = keys.slots;
+        for (int i = 0; i < slots.length; ++i) {
+            if (values[i] != null) {
+                map.put(slots[i], unmask(values[i]));
+            }
+        }
+        return map;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    String get(String key) {
+        final int i = keys.indexOf(key);
+        return i < 0 ? null : unmask(values[i]);
+    }
+
+    boolean containsKey(String key) {
+        final int i = keys.indexOf(key);
+        return i >= 0 && values[i] != null;
+    }
+
+    /**
+     * Returns a new set containing the keys in this map.
+     *
+     * @return a copy of the key set
+     */
+    Set<String> keySet() {
+        final HashSet<String> set = new HashSet<>(size * 4 / 3 + 1);
+        final String[] slots = keys.slots;
+        for (int i = 0; i < slots.length; ++i) {
+            if (values[i] != null) {
+                set.add(slots[i]);
+            }
+        }
+        return set;
+    }
+
+    String put(String key, String value) {
+        int i = keys.indexOf(key);
+        if (i < 0) {
+            key = key.intern();
+            if (!ownsKeys) {
+                final KeyTable oldKeys = keys;
+                final KeyTable next = oldKeys.sharedWith(key);
+                if (next != null) {
+                    keys = next;
+                    if (next.slots.length != oldKeys.slots.length) {
+                        values = reindex(oldKeys, values, next);
+                    }
+                } else {
+                    keys = oldKeys.privateCopy();
+                    ownsKeys = true;
+                }
+            }
+            if (ownsKeys) {
+                final String[] oldSlots = keys.slots;
+                if (keys.add(key)) {
+                    values = reindex(oldSlots, values, keys);
+                }
+            }
+            i = keys.indexOf(key);
+        }
+        final Object old = values[i];
+        if (old == null) {
+            ++size;
+        }
+        values[i] = mask(value);
+        return unmask(old);
+    }
+
+    String remove(String key) {
+        final int i = keys.indexOf(key);
+        if (i < 0 || values[i] == null) {
+            return null;
+        }
+        final Object old = values[i];
+        values[i] = null;
+        --size;
+        // don't let a table fill up with keys that are no longer used
+        if (keys.count > 2 * size + 8) {
+            compact();
+        }
+        return unmask(old);
+    }
+
+    /**
+     * Rebuilds the map so that its key table only includes keys that have
+     * values.
+     */
+    private void compact() {
+        final CompactStringMap copy = from(toHashMap());
+        keys = copy.keys;
+        values = copy.values;
+        size = copy.size;
+        ownsKeys = copy.ownsKeys;
+    }
+
+    private static Object[] reindex(KeyTable from, Object[] fromValues, KeyTable to) {
+        return reindex(from.slots, fromValues, to);
+    }
+
+    private static Object[] reindex(String[] slots, Object[] fromValues, KeyTable to) {
+        final Object[] toValues = new Object[to.slots.length];
+        for (int i = 0; i < slots.length; ++i) {
+            if (fromValues[i] != null) {
+                toValues[to.indexOf(slots[i])] = fromValues[i];
+            }
+        }
+        return toValues;
+    }
+
+    private static Object mask(String value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        return value.length() <= MAX_INTERNED_LENGTH ? value.intern() : value;
+    }
+
+    private static String unmask(Object value) {
+        return value == NULL_VALUE ? null : (String) value;
+    }
+
+    /**
+     * An open-addressed table of keys. Shared tables are immutable; a shared
+     * table records the tables that result from adding each key to it, so
+     * that maps that add the same keys in the same order share tables. Each
+     * table keeps the table it extends alive, so a chain of transitions lasts
+     * exactly as long as some map uses a table at its end. Private tables
+     * belong to a single map and grow in place.
+     */
+    private static final class KeyTable {
+
+        static final KeyTable EMPTY = new KeyTable(new String[8], 0, null, true);
+
+        /**
+         * Tables with this many keys, or which already have this many
+         * transitions, are not extended by further shared tables.
+         */
+        private static final int MAX_SHARED_KEYS = 128;
+        private static final int MAX_TRANSITIONS = 16;
+
+        String[] slots;
+        int count;
+        private final ConcurrentHashMap<String, WeakReference<KeyTable>> transitions;
+        // keeps the tables that lead to this one from being collected
+        private final KeyTable parent;
+
+        private KeyTable(String[] slots, int count, KeyTable parent, boolean shareable) {
+            this.slots = slots;
+            this.count = count;
+            this.parent = parent;
+            transitions = shareable ? new ConcurrentHashMap<>(4) : null;
+        }
+
+        int indexOf(String key) {
+            final int mask = slots.length - 1;
+            int i = hash(key) & mask;
+            String k;
+            while ((k = slots[i]) != null) {
+                if (k == key || k.equals(key)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns a shared table that contains the keys of this shared table
+         * and a key that is not in this table, or {@code null} if the result
+         * should not be shared.
+         */
+        KeyTable sharedWith(String key) {
+            if (transitions == null) {
+                return null;
+            }
+            final WeakReference<KeyTable> ref = transitions.get(key);
+            KeyTable next = ref == null ? null : ref.get();
+            if (next != null) {
+                return next;
+            }
+            if (transitions.size() >= MAX_TRANSITIONS) {
+                transitions.values().removeIf(r -> r.get() == null);
+                if (transitions.size() >= MAX_TRANSITIONS) {
+                    return null;
+                }
+            }
+            synchronized (transitions) {
+                final WeakReference<KeyTable> raced = transitions.get(key);
+                next = raced == null ? null : raced.get();
+                if (next == null) {
+                    next = new KeyTable(
+                            extend(key, slots, count), count + 1, this, count + 1 < MAX_SHARED_KEYS
+                    );
+                    transitions.put(key, new WeakReference<>(next));
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Returns a private copy of this table.
+         */
+        KeyTable privateCopy() {
+            return new KeyTable(slots.clone(), count, null, false);
+        }
+
+        /**
+         * Adds a key that is not in this private table.
+         *
+         * @return {@code true} if the key positions changed because the table
+         * had to grow
+         */
+        boolean add(String key) {
+            final int newCount = count + 1;
+            final boolean grow = newCount * 2 > slots.length;
+            if (grow) {
+                slots = extend(key, slots, count);
+            } else {
+                insert(slots, key);
+            }
+            count = newCount;
+            return grow;
+        }
+
+        /**
+         * Returns a new slot array with the keys of an existing array and a
+         * new key.
+         */
+        private static String[] extend(String key, String[] slots, int count) {
+            final int newCount = count + 1;
+            // keep the load factor at or below 1/2 to keep probes short
+            int capacity = slots.length;
+            while (newCount * 2 > capacity) {
+                capacity *= 2;
+            }
+            final String[] newSlots;
+            if (capacity == slots.length) {
+                // existing keys keep their positions
+                newSlots = slots.clone();
+            } else {
+                newSlots = new String[capacity];
+                for (String k : slots) {
+                    if (k != null) {
+                        insert(newSlots, k);
+                    }
+                }
+            }
+            insert(newSlots, key);
+            return newSlots;
+        }
+
+        private static void insert(String[] slots, String key) {
+            final int mask = slots.length - 1;
+            int i = hash(key) & mask;
+            while (slots[i] != null) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+        }
+
+        private static int hash(String key) {
+            final int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+}
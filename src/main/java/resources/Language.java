@@ -6,7 +6,6 @@ import ca.cgjennings.i18n.IntegerPluralizer;
 import ca.cgjennings.ui.theme.LocaleIcon;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.Collator;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -18,8 +17,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Level;
 import javax.swing.Icon;
@@ -42,26 +41,36 @@ import javax.swing.Icon;
  * own and set the default instance as their parents, although this takes a
  * little more work.
  *
+ * <p>
+ * Strings are looked up far more often than they are added. The string
+ * tables are therefore published as immutable snapshots that are replaced
+ * when strings are added or set, and looking up a string never blocks.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  * @since 3.0
  */
 public class Language implements Iterable<String> {
 
-    private Locale loc;
+    private volatile Locale loc;
 
-    private HashMap<String, String> strings = new HashMap<>(2500);
+    // immutable snapshots, replaced while holding this instance's lock
+    private volatile Map<String, String> strings = Collections.emptyMap();
+    private volatile Map<String, String> definedStrings = Collections.emptyMap();
     private List<String> bundles = new LinkedList<>();
-    private HashMap<String, String> definedStrings = new HashMap<>(50);
 
-    private IntegerPluralizer plur;
-    private Formatter formatter;
-    private StringBuilder formatBuffer;
-    private Collator collator;
+    private volatile IntegerPluralizer plur;
+    private volatile Collator collator;
 
-    private static Language uiLang;
-    private static Language gameLang;
+    private static volatile Language uiLang;
+    private static volatile Language gameLang;
 
-    private Language parent;
+    private volatile Language parent;
+
+    /**
+     * Formatters are reused by each thread since formatting may happen
+     * concurrently; the locale is supplied with each format request.
+     */
+    private static final ThreadLocal<Formatter> formatter = ThreadLocal.withInitial(Formatter::new);
 
     /**
      * Create an empty language resource for a locale. If {@code loc} is
@@ -109,7 +118,7 @@ public class Language implements Iterable<String> {
      *
      * @return the parent instance, or {@code null}
      */
-    public synchronized Language getParent() {
+    public Language getParent() {
         return parent;
     }
 
@@ -148,18 +157,19 @@ public class Language implements Iterable<String> {
         synchronized (this) {
             this.loc = loc;
 
-            plur = IntegerPluralizer.create(loc);
-            plur.setLanguage(this);
-            formatter = new Formatter(loc);
-            formatBuffer = (StringBuilder) formatter.out();
+            IntegerPluralizer newPlur = IntegerPluralizer.create(loc);
+            newPlur.setLanguage(this);
+            plur = newPlur;
             collator = Collator.getInstance(loc);
 
-            strings.clear();
+            // the old strings remain visible until the reload is complete
+            final HashMap<String, String> newStrings = new HashMap<>(2500);
             List<String> bundlesToReload = bundles;
             bundles = new LinkedList<>();
             for (String s : bundlesToReload) {
-                addStrings(s);
+                addStrings(s, newStrings);
             }
+            strings = newStrings;
         }
     }
 
@@ -168,7 +178,7 @@ public class Language implements Iterable<String> {
      *
      * @return the language locale
      */
-    public synchronized Locale getLocale() {
+    public Locale getLocale() {
         return loc;
     }
 
@@ -195,7 +205,18 @@ public class Language implements Iterable<String> {
         if (baseResource == null) {
             throw new NullPointerException("baseResource");
         }
+        final HashMap<String, String> newStrings = new HashMap<>(strings);
+        if (addStrings(baseResource, newStrings)) {
+            strings = newStrings;
+        }
+    }
 
+    /**
+     * Adds the strings from a set of resource files to a string table that
+     * will replace the current table. Returns {@code false} if the resource
+     * files were already added.
+     */
+    private boolean addStrings(String baseResource, HashMap<String, String> newStrings) {
         String extension = ".properties";
         int dot = baseResource.lastIndexOf('.');
         if (dot >= 0) {
@@ -209,7 +230,7 @@ public class Language implements Iterable<String> {
         if (!allowOverwrite) {
             for (String file : bundles) {
                 if (file.equals(baseResource)) {
-                    return;
+                    return false;
                 }
             }
         }
@@ -219,30 +240,21 @@ public class Language implements Iterable<String> {
             throw new IllegalArgumentException("no such resource: " + baseResource + extension);
         }
 
-        Properties p = new Properties();
+        HashMap<String, String> p = new HashMap<>();
         for (String file : files) {
-            InputStream in = null;
             try {
-                in = ResourceKit.composeResourceURL(file).openStream();
-                p.load(in);
+                p.putAll(PropertyTableCache.load(ResourceKit.composeResourceURL(file)));
             } catch (IOException e) {
                 StrangeEons.log.log(Level.WARNING, "failed to load string bundle: " + file, e);
-            } finally {
-                try {
-                    if (in != null) {
-                        in.close();
-                    }
-                } catch (IOException e) {
-                    StrangeEons.log.log(Level.WARNING, file, e);
-                }
             }
         }
-        for (String key : p.stringPropertyNames()) {
-            if (allowOverwrite || !strings.containsKey(key)) {
-                strings.put(key, p.getProperty(key));
+        for (Map.Entry<String, String> en : p.entrySet()) {
+            if (allowOverwrite || !newStrings.containsKey(en.getKey())) {
+                newStrings.put(en.getKey(), en.getValue());
             }
         }
         bundles.add(baseResource);
+        return true;
     }
 
     /**
@@ -270,17 +282,19 @@ public class Language implements Iterable<String> {
         return get(key);
     }
 
-    private synchronized String getImpl(String key) {
-        String v = definedStrings.get(key);
-        if (v == null) {
-            v = strings.get(key);
+    private String getImpl(String key) {
+        Language lang = this;
+        do {
+            String v = lang.definedStrings.get(key);
             if (v == null) {
-                if (getParent() != null) {
-                    v = getParent().getImpl(key);
-                }
+                v = lang.strings.get(key);
             }
-        }
-        return v;
+            if (v != null) {
+                return v;
+            }
+            lang = lang.parent;
+        } while (lang != null);
+        return null;
     }
 
     /**
@@ -293,7 +307,7 @@ public class Language implements Iterable<String> {
      * @param args the arguments to use to fill in the formatting template
      * @return the localized, formatted string or [MISSING: key]
      */
-    public synchronized String get(String key, Object... args) {
+    public String get(String key, Object... args) {
         String v = getImpl(key);
         if (v == null) {
             return "[MISSING: " + key + "]";
@@ -302,8 +316,10 @@ public class Language implements Iterable<String> {
             return v;
         }
 
+        final Formatter f = formatter.get();
+        final StringBuilder formatBuffer = (StringBuilder) f.out();
         formatBuffer.delete(0, formatBuffer.length());
-        return formatter.format(getLocale(), v, args).toString();
+        return f.format(loc, v, args).toString();
     }
 
     /**
@@ -312,15 +328,8 @@ public class Language implements Iterable<String> {
      * @param key the name of the key to test
      * @return {@code true} if the key has a value
      */
-    public synchronized boolean isKeyDefined(String key) {
-        if (strings.containsKey(key)) {
-            return true;
-        } else if (definedStrings.containsKey(key)) {
-            return true;
-        } else if (getParent() != null) {
-            return getParent().isKeyDefined(key);
-        }
-        return false;
+    public boolean isKeyDefined(String key) {
+        return getImpl(key) != null;
     }
 
     /**
@@ -336,11 +345,13 @@ public class Language implements Iterable<String> {
         if (key == null) {
             throw new NullPointerException("key");
         }
+        final HashMap<String, String> newDefs = new HashMap<>(definedStrings);
         if (value == null) {
-            definedStrings.remove(key);
+            newDefs.remove(key);
         } else {
-            definedStrings.put(key, value);
+            newDefs.put(key, value);
         }
+        definedStrings = newDefs;
     }
 
     /**
@@ -349,14 +360,12 @@ public class Language implements Iterable<String> {
      *
      * @return a set of this language's keys
      */
-    public synchronized Set<String> keySet() {
-        HashSet<String> keys = new HashSet<>(definedStrings.size() + strings.size());
-        for (String k : definedStrings.keySet()) {
-            keys.add(k);
-        }
-        for (String k : strings.keySet()) {
-            keys.add(k);
-        }
+    public Set<String> keySet() {
+        final Map<String, String> defs = definedStrings;
+        final Map<String, String> strs = strings;
+        HashSet<String> keys = new HashSet<>(defs.size() + strs.size());
+        keys.addAll(defs.keySet());
+        keys.addAll(strs.keySet());
         return keys;
     }
 
@@ -395,11 +404,17 @@ public class Language implements Iterable<String> {
      *
      * @return the UI language instance
      */
-    public synchronized static Language getInterface() {
-        if (uiLang == null) {
-            setInterfaceLocale(null);
+    public static Language getInterface() {
+        Language lang = uiLang;
+        if (lang == null) {
+            synchronized (Language.class) {
+                if (uiLang == null) {
+                    setInterfaceLocale(null);
+                }
+                lang = uiLang;
+            }
         }
-        return uiLang;
+        return lang;
     }
 
     /**
@@ -407,11 +422,17 @@ public class Language implements Iterable<String> {
      *
      * @return the game language instance
      */
-    public synchronized static Language getGame() {
-        if (gameLang == null) {
-            setGameLocale(null);
+    public static Language getGame() {
+        Language lang = gameLang;
+        if (lang == null) {
+            synchronized (Language.class) {
+                if (gameLang == null) {
+                    setGameLocale(null);
+                }
+                lang = gameLang;
+            }
         }
-        return gameLang;
+        return lang;
     }
 
     /**
@@ -426,8 +447,10 @@ public class Language implements Iterable<String> {
         Locale.setDefault(ui);
 
         if (uiLang == null) {
-            uiLang = new Language(ui);
-            uiLang.addStrings("text/interface/eons-text");
+            // fully initialize before publishing, since readers do not lock
+            Language lang = new Language(ui);
+            lang.addStrings("text/interface/eons-text");
+            uiLang = lang;
         } else {
             uiLang.setLocale(ui);
         }
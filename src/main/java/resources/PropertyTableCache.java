@@ -0,0 +1,225 @@
+package resources;
+
+import ca.cgjennings.apps.arkham.StrangeEons;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+
+/**
+ * Loads the key, value pairs of settings and string table files, keeping a
+ * binary copy of each parsed table in the user storage folder. Parsing the
+ * text format requires escape processing for every line of every file, and
+ * the application and its plug-ins load thousands of lines of settings and
+ * strings during startup. When a file is loaded again and its modification
+ * time and size have not changed, the table is read from the binary copy
+ * instead.
+ *
+ * <p>
+ * Each binary table consists of a fixed-size header, an index with the
+ * offset and length of each key and value, and a pool of the characters of
+ * all distinct strings. Since every part of the file is at a fixed offset, a
+ * table can be read with a single bulk read. If a binary table is missing,
+ * stale, or damaged, the source is parsed as text and the binary copy is
+ * rewritten.
+ *
+ * @author Chris Jennings <https://cgjennings.ca/contact>
+ * @since 3.4
+ */
+final class PropertyTableCache {
+
+    private PropertyTableCache() {
+    }
+
+    private static final int MAGIC = 0x5345_5442;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final String CACHE_FOLDER = "table-cache/";
+
+    private static File cacheFolder;
+    private static boolean cacheUnavailable;
+
+    /**
+     * Returns the key, value pairs in the properties file at the specified
+     * URL. The returned map is a new map that the caller may modify.
+     *
+     * @param url the location of a file in {@code .properties} format
+     * @return the keys and values defined in the file
+     * @throws IOException if the file cannot be read
+     */
+    static Map<String, String> load(URL url) throws IOException {
+        final URLConnection conn = url.openConnection();
+        try (InputStream in = conn.getInputStream()) {
+            final long modified = conn.getLastModified();
+            final long length = conn.getContentLengthLong();
+            final String source = url.toExternalForm();
+            final File cacheFile = modified > 0L ? getCacheFile(source) : null;
+
+            if (cacheFile != null && cacheFile.exists()) {
+                final Map<String, String> table = read(cacheFile, source, modified, length);
+                if (table != null) {
+                    return table;
+                }
+            }
+
+            final Properties p = new Properties();
+            p.load(in);
+            final HashMap<String, String> table = new HashMap<>(p.size() * 4 / 3 + 1);
+            for (String key : p.stringPropertyNames()) {
+                table.put(key, p.getProperty(key));
+            }
+
+            if (cacheFile != null) {
+                try {
+                    write(cacheFile, source, modified, length, table);
+                } catch (IOException ex) {
+                    StrangeEons.log.log(Level.WARNING, "unable to write table cache for " + source, ex);
+                }
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns the binary table file for a source URL, or {@code null} if
+     * tables cannot be cached.
+     */
+    private static synchronized File getCacheFile(String source) {
+        if (cacheFolder == null) {
+            if (cacheUnavailable) {
+                return null;
+            }
+            try {
+                cacheFolder = StrangeEons.getUserStorageFile(CACHE_FOLDER);
+            } catch (Throwable t) {
+                cacheUnavailable = true;
+                StrangeEons.log.log(Level.WARNING, "table cache disabled", t);
+                return null;
+            }
+        }
+        // the source URL is stored in the file to detect collisions
+        return new File(cacheFolder, String.format("%08x%04x.tbl", source.hashCode(), source.length() & 0xffff));
+    }
+
+    /**
+     * Reads a binary table, returning {@code null} if the table does not
+     * match the source or is damaged.
+     */
+    private static Map<String, String> read(File f, String source, long modified, long length) {
+        try {
+            final ByteBuffer buff = ByteBuffer.wrap(Files.readAllBytes(f.toPath()));
+            if (buff.getInt() != MAGIC || buff.getInt() != VERSION
+                    || buff.getLong() != modified || buff.getLong() != length) {
+                return null;
+            }
+            final int entries = buff.getInt();
+            final int poolSize = buff.getInt();
+            final int sourceOffset = buff.getInt();
+            final int sourceLength = buff.getInt();
+            if (entries < 0 || poolSize < 0) {
+                return null;
+            }
+
+            final int indexStart = HEADER_SIZE;
+            final int poolStart = indexStart + entries * 16;
+            if (poolStart < indexStart || (long) poolStart + poolSize * 2L != buff.capacity()) {
+                return null;
+            }
+            final char[] pool = new char[poolSize];
+            buff.position(poolStart);
+            final CharBuffer chars = buff.asCharBuffer();
+            chars.get(pool);
+
+            if (!source.contentEquals(CharBuffer.wrap(pool, sourceOffset, sourceLength))) {
+                return null;
+            }
+
+            buff.position(indexStart);
+            final HashMap<String, String> table = new HashMap<>(entries * 4 / 3 + 1);
+            for (int i = 0; i < entries; ++i) {
+                final String key = new String(pool, buff.getInt(), buff.getInt());
+                final String value = new String(pool, buff.getInt(), buff.getInt());
+                table.put(key, value);
+            }
+            return table;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException ex) {
+            StrangeEons.log.log(Level.FINE, "ignoring damaged table cache " + f, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a binary table. The table is written to a temporary file which
+     * then replaces the existing cache file, so that a table is never read
+     * while partially written.
+     */
+    private static void write(File f, String source, long modified, long length, Map<String, String> table) throws IOException {
+        final HashMap<String, Integer> offsets = new HashMap<>(table.size() * 2);
+        final StringBuilder pool = new StringBuilder(8_192);
+        final int[] index = new int[table.size() * 4];
+        int i = 0;
+        for (Map.Entry<String, String> en : table.entrySet()) {
+            index[i++] = intern(en.getKey(), offsets, pool);
+            index[i++] = en.getKey().length();
+            index[i++] = intern(en.getValue(), offsets, pool);
+            index[i++] = en.getValue().length();
+        }
+        final int sourceOffset = intern(source, offsets, pool);
+
+        final Path dest = f.toPath();
+        final Path temp = Files.createTempFile(dest.getParent(), "tbl", ".tmp");
+        try {
+            try (OutputStream fout = Files.newOutputStream(temp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fout, 16_384))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(modified);
+                out.writeLong(length);
+                out.writeInt(table.size());
+                out.writeInt(pool.length());
+                out.writeInt(sourceOffset);
+                out.writeInt(source.length());
+                for (int v : index) {
+                    out.writeInt(v);
+                }
+                out.writeChars(pool.toString());
+            }
+            try {
+                Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the offset of a string in the character pool, adding it if it
+     * is not already present.
+     */
+    private static int intern(String s, HashMap<String, Integer> offsets, StringBuilder pool) {
+        Integer offset = offsets.get(s);
+        if (offset == null) {
+            offset = pool.length();
+            pool.append(s);
+            offsets.put(s, offset);
+        }
+        return offset;
+    }
+}
@@ -11,19 +11,33 @@ import ca.cgjennings.ui.JUtilities;
 import ca.cgjennings.util.SortedProperties;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
-import javax.swing.Timer;
 
 /**
  * Provides low-level access to the global and user settings tables. This class
@@ -31,6 +45,13 @@ import javax.swing.Timer;
  * general purpose setting access, use the abstractions provided by
  * {@link Settings}.
  *
+ * <p>
+ * The settings tables are read far more often than they are written: every
+ * setting lookup that is not satisfied by a more specific scope ends here.
+ * Reads are therefore lock free and require a single lookup in a merged view
+ * of the user and global tables. Changes to either table are serialized and
+ * update the merged view so that user settings continue to take precedence.
+ *
  * @author Chris Jennings <https://cgjennings.ca/contact>
  * @since 3.0
  */
@@ -42,12 +63,70 @@ public class RawSettings {
     private RawSettings() {
     }
 
-    private static final Properties settings = new Properties();
-    private static final Properties userSettings = new SortedProperties();
+    private static final ConcurrentHashMap<String, String> settings = new ConcurrentHashMap<>(4_096);
+    private static final ConcurrentHashMap<String, String> userSettings = new ConcurrentHashMap<>(256);
+    /**
+     * The union of the user and global tables, with user values replacing
+     * global ones. Only modified while holding {@link #writeLock}.
+     */
+    private static final ConcurrentHashMap<String, String> merged = new ConcurrentHashMap<>(4_096);
+    private static final Object writeLock = new Object();
+    /**
+     * Version stamp used to invalidate cached setting lookups; updated after
+     * every change to the merged view.
+     */
+    private static volatile long version;
+
+    /**
+     * Returns the current version stamp of the merged settings view. The
+     * stamp changes whenever the value of any key changes.
+     */
+    static long getVersion() {
+        return version;
+    }
+
+    /**
+     * Updates the version stamp, which invalidates all cached lookups.
+     */
+    static void invalidate() {
+        version = Settings.nextVersion();
+    }
+
+    /**
+     * Sets a global value and updates the merged view. Must be called while
+     * holding the write lock.
+     */
+    private static void putGlobal(String key, String value) {
+        settings.put(key, value);
+        if (!userSettings.containsKey(key)) {
+            merged.put(key, value);
+            invalidate();
+        }
+    }
+
+    /**
+     * Sets a user value and updates the merged view. Must be called while
+     * holding the write lock.
+     *
+     * @return the previous user value, or {@code null}
+     */
+    private static String putUser(String key, String value) {
+        final String prev = userSettings.put(key, value);
+        merged.put(key, value);
+        invalidate();
+        return prev;
+    }
+
     /**
      * The file that stores user settings on this system.
      */
     private static final File PREFERENCE_FILE = StrangeEons.getUserStorageFile("preferences");
+    /**
+     * An append-only log of changes to user settings since the preference
+     * file was last written. If the application does not terminate normally,
+     * the changes are recovered from the journal on the next run.
+     */
+    private static final File JOURNAL_FILE = StrangeEons.getUserStorageFile("preferences.journal");
 
     /**
      * Returns the inherited value of the setting key, or {@code null} if it is
@@ -62,11 +141,7 @@ public class RawSettings {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        String value = userSettings.getProperty(key);
-        if (value == null) {
-            value = settings.getProperty(key);
-        }
-        return value;
+        return merged.get(key);
     }
 
     /**
@@ -82,7 +157,7 @@ public class RawSettings {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        return userSettings.getProperty(key);
+        return userSettings.get(key);
     }
 
     /**
@@ -100,10 +175,11 @@ public class RawSettings {
         if (value == null) {
             throw new NullPointerException("value");
         }
-        synchronized (userSettings) {
-            Object prev = userSettings.setProperty(key, value);
+        synchronized (writeLock) {
+            String prev = putUser(key, value);
             if (!value.equals(prev)) {
                 writePending = true;
+                journal(key, value);
             }
         }
     }
@@ -119,10 +195,18 @@ public class RawSettings {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        synchronized (userSettings) {
+        synchronized (writeLock) {
             if (userSettings.remove(key) != null) {
                 // will be null if there was no previous value
+                final String global = settings.get(key);
+                if (global == null) {
+                    merged.remove(key);
+                } else {
+                    merged.put(key, global);
+                }
+                invalidate();
                 writePending = true;
+                journal(key, null);
             }
         }
     }
@@ -142,6 +226,7 @@ public class RawSettings {
         performMigrationHint = args.xMigratePrefs;
         // if the command line --resetprefs flag is set, we are done
         if (args.resetprefs) {
+            JOURNAL_FILE.delete();
             return;
         }
 
@@ -150,7 +235,13 @@ public class RawSettings {
         try {
             if (PREFERENCE_FILE.exists()) {
                 in = new BufferedInputStream(new FileInputStream(PREFERENCE_FILE));
-                userSettings.load(in);
+                Properties p = new Properties();
+                p.load(in);
+                synchronized (writeLock) {
+                    for (String key : p.stringPropertyNames()) {
+                        putUser(key, p.getProperty(key));
+                    }
+                }
             } else {
                 performMigrationHint = true;
             }
@@ -164,6 +255,120 @@ public class RawSettings {
                 }
             }
         }
+        replayJournal();
+    }
+
+    /**
+     * Applies any changes recorded in the journal, which will only exist if
+     * the application did not write the preference file before it last
+     * terminated.
+     */
+    private static void replayJournal() {
+        if (!JOURNAL_FILE.exists()) {
+            return;
+        }
+        int changes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(JOURNAL_FILE)))) {
+            synchronized (writeLock) {
+                for (;;) {
+                    final int op;
+                    final String key, value;
+                    try {
+                        op = in.readByte();
+                        if (op != JOURNAL_SET && op != JOURNAL_REMOVE) {
+                            throw new IOException("bad journal record");
+                        }
+                        key = readJournalString(in);
+                        value = op == JOURNAL_SET ? readJournalString(in) : null;
+                    } catch (EOFException eof) {
+                        // end of file, or a partial record from a crash
+                        break;
+                    }
+                    if (op == JOURNAL_SET) {
+                        putUser(key, value);
+                    } else if (op == JOURNAL_REMOVE && userSettings.remove(key) != null) {
+                        final String global = settings.get(key);
+                        if (global == null) {
+                            merged.remove(key);
+                        } else {
+                            merged.put(key, global);
+                        }
+                        invalidate();
+                    } else {
+                        continue;
+                    }
+                    ++changes;
+                }
+            }
+        } catch (IOException e) {
+            StrangeEons.log.log(Level.WARNING, "unable to read preference journal", e);
+        }
+        if (changes > 0) {
+            StrangeEons.log.log(Level.INFO, "recovered {0} user setting changes from journal", changes);
+            writePending = true;
+            writeUserSettings();
+        }
+    }
+
+    private static final byte JOURNAL_SET = '+';
+    private static final byte JOURNAL_REMOVE = '-';
+
+    private static String readJournalString(DataInputStream in) throws IOException {
+        final int len = in.readInt();
+        // a damaged record must not be able to request a huge buffer
+        if (len < 0 || len > in.available()) {
+            throw new IOException("bad journal record");
+        }
+        final byte[] utf8 = new byte[len];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeJournalString(DataOutputStream out, String s) throws IOException {
+        final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Queues a change to a user setting to be appended to the journal by the
+     * background writer. A {@code null} value records the removal of the key.
+     */
+    private static void journal(String key, String value) {
+        journalQueue.add(new String[]{key, value});
+        if (journalQueue.size() == 1) {
+            writer.execute(RawSettings::flushJournal);
+        }
+    }
+    private static final ConcurrentLinkedQueue<String[]> journalQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Appends all queued changes to the journal.
+     */
+    private synchronized static void flushJournal() {
+        final List<String[]> changes = new ArrayList<>();
+        String[] change;
+        while ((change = journalQueue.poll()) != null) {
+            changes.add(change);
+        }
+        appendToJournal(changes);
+    }
+
+    private static void appendToJournal(List<String[]> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(JOURNAL_FILE, true)))) {
+            for (String[] change : changes) {
+                out.writeByte(change[1] == null ? JOURNAL_REMOVE : JOURNAL_SET);
+                writeJournalString(out, change[0]);
+                if (change[1] != null) {
+                    writeJournalString(out, change[1]);
+                }
+            }
+        } catch (IOException e) {
+            StrangeEons.log.log(Level.WARNING, "unable to append to preference journal", e);
+        }
     }
     private static boolean performMigrationHint;
 
@@ -177,10 +382,30 @@ public class RawSettings {
      * written to an unusually slow device.
      */
     public synchronized static void writeUserSettings() {
-        writeRequested = true;
+        if (!writeRequested) {
+            writeRequested = true;
+            writer.schedule(() -> {
+                synchronized (RawSettings.class) {
+                    if (writeRequested) {
+                        writeUserSettingsImmediately();
+                    }
+                }
+            }, PREF_WRITE_DELAY, TimeUnit.MILLISECONDS);
+        }
     }
     private static boolean writeRequested = false;
-    private static boolean writePending;
+    private static volatile boolean writePending;
+
+    /**
+     * Writes preferences in the background. All background writes are
+     * performed by a single thread, in order; the thread is not started until
+     * the first write is requested.
+     */
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor((r) -> {
+        Thread t = new Thread(r, "Preference writer");
+        t.setDaemon(true);
+        return t;
+    });
 
     /**
      * Writes the user settings to the preference file immediately. This method
@@ -189,44 +414,55 @@ public class RawSettings {
      * times, call {@link #writeUserSettings()}.
      */
     public synchronized static void writeUserSettingsImmediately() {
+        writeRequested = false;
         // do nothing if the settings haven't changed
         if (!writePending) {
             return;
         }
+        // take a consistent snapshot; changes that have not been journaled
+        // yet are covered by the snapshot and can be dropped from the queue
+        final Properties sorted = new SortedProperties();
+        final List<String[]> unjournaled = new ArrayList<>();
+        synchronized (writeLock) {
+            writePending = false;
+            sorted.putAll(userSettings);
+            String[] change;
+            while ((change = journalQueue.poll()) != null) {
+                unjournaled.add(change);
+            }
+        }
 
-        BufferedOutputStream out = null;
+        File temp = null;
         try {
-            out = new BufferedOutputStream(new FileOutputStream(PREFERENCE_FILE));
-            userSettings.store(out, " This file contains user settings for Strange Eons.\n Any key in settings.txt can be customized here.\n");
+            temp = File.createTempFile("preferences", ".tmp", PREFERENCE_FILE.getParentFile());
+            try (FileOutputStream fout = new FileOutputStream(temp)) {
+                BufferedOutputStream out = new BufferedOutputStream(fout);
+                sorted.store(out, " This file contains user settings for Strange Eons.\n Any key in settings.txt can be customized here.\n");
+                out.flush();
+                fout.getFD().sync();
+            }
+            try {
+                Files.move(temp.toPath(), PREFERENCE_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), PREFERENCE_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            // changes made after the snapshot was taken will be appended
+            // to a new journal
+            JOURNAL_FILE.delete();
             StrangeEons.log.info("wrote user settings");
         } catch (IOException e) {
+            writePending = true;
+            appendToJournal(unjournaled);
             StrangeEons.log.log(Level.SEVERE, "failure while writing user settings", e);
         } finally {
-            writeRequested = false;
-            writePending = false;
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (IOException e) {
-                }
+            if (temp != null) {
+                temp.delete();
             }
         }
     }
 
-    private static final int PREF_WRITE_INITIAL_DELAY = 90 * 1_000;
-    private static final int PREF_WRITE_DELAY = 30 * 1_000;
-
-    static {
-        Timer prefWriter = new Timer(PREF_WRITE_DELAY, (e) -> {
-            synchronized (RawSettings.class) {
-                if (writeRequested) {
-                    writeUserSettingsImmediately();
-                }
-            }
-        });
-        prefWriter.setInitialDelay(PREF_WRITE_INITIAL_DELAY);
-        prefWriter.start();
-    }
+    private static final int PREF_WRITE_DELAY = 5 * 1_000;
 
     /**
      * Merge settings from a resource file into the global settings table. These
@@ -241,26 +477,20 @@ public class RawSettings {
             throw new NullPointerException("resource");
         }
 
-        InputStream in = null;
         try {
             URL url = ResourceKit.composeResourceURL(resource);
             if (url == null) {
                 ErrorDialog.displayError(Language.string("rk-err-read-resource", resource), null);
                 return;
             }
-            in = url.openStream();
-            Properties p = new Properties();
-            p.load(in);
-            settings.putAll(p);
-        } catch (IOException e) {
-            ErrorDialog.displayError(Language.string("rk-err-read-resource", resource), e);
-        } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {
+            Map<String, String> table = PropertyTableCache.load(url);
+            synchronized (writeLock) {
+                for (Map.Entry<String, String> en : table.entrySet()) {
+                    putGlobal(en.getKey(), en.getValue());
                 }
             }
+        } catch (IOException e) {
+            ErrorDialog.displayError(Language.string("rk-err-read-resource", resource), e);
         }
     }
 
@@ -292,7 +522,7 @@ public class RawSettings {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        return settings.getProperty(key);
+        return settings.get(key);
     }
 
     /**
@@ -313,14 +543,19 @@ public class RawSettings {
             throw new NullPointerException("value");
         }
         if (Settings.getShared().hasPropertyChangeListeners()) {
-            String oldVal = getGlobalSetting(key);
-            settings.put(key, value);
-            String newVal = getSetting(key);
+            String oldVal, newVal;
+            synchronized (writeLock) {
+                oldVal = getGlobalSetting(key);
+                putGlobal(key, value);
+                newVal = getSetting(key);
+            }
             if (oldVal == null ? newVal != null : !oldVal.equals(newVal)) {
                 Settings.getShared().firePropertyChangeEvent(key, oldVal, newVal);
             }
         } else {
-            settings.put(key, value);
+            synchronized (writeLock) {
+                putGlobal(key, value);
+            }
         }
     }
 
@@ -332,9 +567,7 @@ public class RawSettings {
      * @return an immutable set of the keys for settings
      */
     static Set<String> getSettingKeySet() {
-        Set<String> keys = new HashSet<>(userSettings.stringPropertyNames());
-        keys.addAll(settings.stringPropertyNames());
-        return Collections.unmodifiableSet(keys);
+        return Collections.unmodifiableSet(new HashSet<>(merged.keySet()));
     }
 
     /**
@@ -344,7 +577,7 @@ public class RawSettings {
      * @return an immutable set of the keys for settings
      */
     static Set<String> getUserSettingKeySet() {
-        return Collections.unmodifiableSet(userSettings.stringPropertyNames());
+        return Collections.unmodifiableSet(new HashSet<>(userSettings.keySet()));
     }
 
     private static void migrateFile(String oldName, String newName) {
@@ -1679,6 +1679,7 @@ public class ResourceKit {
             });
 
             registerCacheMetrics(vectorCache.createCacheMetrics(true));
+            registerCacheMetrics(Settings.createLookupCacheMetrics());
         }
     }
 
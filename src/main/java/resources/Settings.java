@@ -35,7 +35,6 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
@@ -47,6 +46,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -54,8 +54,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import static resources.Language.string;
@@ -116,7 +121,7 @@ import static resources.Language.string;
 public class Settings implements Serializable, Iterable<String> {
 
     private static final long serialVersionUID = 35461387643185L;
-    private HashMap<String, String> p;
+    private CompactStringMap p;
     private Settings parent;
     
     /**
@@ -280,7 +285,7 @@ public class Settings implements Serializable, Iterable<String> {
         if (p == null) {
             set = Collections.emptySet();
         } else {
-            set = Collections.unmodifiableSet(new HashSet<>(p.keySet()));
+            set = Collections.unmodifiableSet(p.keySet());
         }
         return set;
     }
@@ -342,7 +347,18 @@ public class Settings implements Serializable, Iterable<String> {
         if (key == null) {
             throw new NullPointerException("key");
         }
+        final LookupCache cache = lookupCache;
+        if (cache != null) {
+            return cache.get(this, key);
+        }
+        return getUncached(key);
+    }
 
+    /**
+     * Looks up a key by searching this scope and then its parents, without
+     * consulting the lookup cache.
+     */
+    String getUncached(String key) {
         String value = null;
         // look for private setting
         if (p != null) {
@@ -365,6 +381,214 @@ public class Settings implements Serializable, Iterable<String> {
         return value;
     }
 
+    /**
+     * Sets whether this scope caches the results of key lookups. Looking up a
+     * key that is not defined at this scope requires searching each parent
+     * scope in turn. When the lookup cache is enabled, the resolved value of
+     * each key that is looked up is stored in a flattened table for this
+     * scope. The table is tagged with a version stamp for the chain of parent
+     * scopes and is discarded as soon as a setting changes in any scope of the
+     * chain, so enabling the cache never changes the value that is returned.
+     *
+     * <p>
+     * The cache is most effective for long-lived scopes with deep parent
+     * chains that are read far more often than they are changed, such as the
+     * private settings of a game component. If a scope in the parent chain
+     * uses a custom lookup method, the cache is bypassed. The cache is not
+     * serialized.
+     *
+     * @param enable if {@code true}, lookups at this scope will be cached
+     * @see #isLookupCacheEnabled()
+     * @since 3.4
+     */
+    public void setLookupCacheEnabled(boolean enable) {
+        if (enable != (lookupCache != null)) {
+            lookupCache = enable ? new LookupCache() : null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if key lookups at this scope are cached.
+     *
+     * @return {@code true} if the lookup cache is enabled
+     * @see #setLookupCacheEnabled(boolean)
+     * @since 3.4
+     */
+    public boolean isLookupCacheEnabled() {
+        return lookupCache != null;
+    }
+
+    /**
+     * The version of this scope; this is updated whenever the value of a key
+     * might change at this scope, including a change of parent. Versions are
+     * drawn from a single global counter, so the largest version in a chain of
+     * scopes increases whenever any scope in the chain changes.
+     */
+    private transient volatile long version;
+    private transient volatile LookupCache lookupCache;
+
+    private static final AtomicLong versionCounter = new AtomicLong();
+
+    /**
+     * Returns a new, unique version number. Called when a scope is modified.
+     */
+    static long nextVersion() {
+        return versionCounter.incrementAndGet();
+    }
+
+    private void modified() {
+        version = nextVersion();
+    }
+
+    /**
+     * Returns the version stamp for the lookup chain starting at this scope,
+     * or -1 if the chain includes a scope whose results cannot be versioned.
+     */
+    long getLookupStamp() {
+        if (!STANDARD_LOOKUP.get(getClass())) {
+            return -1L;
+        }
+        final long parentStamp = parent == null ? RawSettings.getVersion() : parent.getLookupStamp();
+        return parentStamp < 0L ? -1L : Math.max(version, parentStamp);
+    }
+
+    /**
+     * Returns the number of scopes that are searched for a key that is not
+     * defined anywhere, including the shared scope.
+     */
+    int getLookupDepth() {
+        return parent == null ? 1 : 1 + parent.getLookupDepth();
+    }
+
+    /**
+     * Determines whether a subclass uses the standard lookup method, which
+     * only depends on state that updates the scope's version.
+     */
+    private static final ClassValue<Boolean> STANDARD_LOOKUP = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("get", String.class).getDeclaringClass() == Settings.class;
+            } catch (NoSuchMethodException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+    };
+
+    /**
+     * A flattened table of the resolved values of the keys looked up in a
+     * scope, valid for a single version stamp of its lookup chain.
+     */
+    private static final class LookupCache {
+
+        private static final int MAX_KEYS = 4_096;
+        /**
+         * Stands in for keys that are not defined.
+         */
+        private static final String UNDEFINED = new String();
+
+        private volatile Table table = new Table(-1L);
+
+        private static final class Table {
+
+            final long stamp;
+            final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+            Table(long stamp) {
+                this.stamp = stamp;
+            }
+        }
+
+        String get(Settings owner, String key) {
+            final long stamp = owner.getLookupStamp();
+            if (stamp < 0L) {
+                return owner.getUncached(key);
+            }
+
+            Table t = table;
+            if (t.stamp != stamp || t.values.size() >= MAX_KEYS) {
+                t = new Table(stamp);
+                table = t;
+                final int depth = owner.getLookupDepth();
+                chainCount.increment();
+                chainDepthTotal.add(depth);
+                if (depth > maxChainDepth) {
+                    maxChainDepth = depth;
+                }
+            }
+
+            String value = t.values.get(key);
+            if (value != null) {
+                hits.increment();
+                return value == UNDEFINED ? null : value;
+            }
+            misses.increment();
+            value = owner.getUncached(key);
+            t.values.put(key, value == null ? UNDEFINED : value);
+            return value;
+        }
+    }
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder chainCount = new LongAdder();
+    private static final LongAdder chainDepthTotal = new LongAdder();
+    private static volatile int maxChainDepth;
+
+    /**
+     * Returns metrics that describe the effectiveness of the lookup caches of
+     * all scopes, including the hit rate and the depth of the cached lookup
+     * chains. Clearing the metrics invalidates every lookup cache.
+     *
+     * @return lookup cache metrics
+     */
+    static CacheMetrics createLookupCacheMetrics() {
+        return new CacheMetrics() {
+            @Override
+            public int getItemCount() {
+                return -1;
+            }
+
+            @Override
+            public long getByteSize() {
+                return -1L;
+            }
+
+            @Override
+            public void clear() {
+                RawSettings.invalidate();
+            }
+
+            @Override
+            public boolean isClearSupported() {
+                return true;
+            }
+
+            @Override
+            public Class<?> getContentType() {
+                return String.class;
+            }
+
+            @Override
+            public String toString() {
+                return "Setting lookup cache";
+            }
+
+            @Override
+            public String status() {
+                final long h = hits.sum();
+                final long lookups = h + misses.sum();
+                final long chains = chainCount.sum();
+                return String.format(
+                        "%,d lookups (%.1f%% hits), mean chain depth %.1f (max %d)",
+                        lookups, lookups == 0L ? 0d : (h * 100d) / lookups,
+                        chains == 0L ? 0d : chainDepthTotal.sum() / (double) chains,
+                        maxChainDepth
+                );
+            }
+        };
+    }
+
     /**
      * Returns a setting value, or a default value if it is not defined.
      *
@@ -463,7 +687,7 @@ public class Settings implements Serializable, Iterable<String> {
             throw new NullPointerException("key");
         }
         if (p == null) {
-            p = new HashMap<>();
+            p = new CompactStringMap();
         }
 
         // magic parent changing code
@@ -482,15 +706,19 @@ public class Settings implements Serializable, Iterable<String> {
                         StrangeEons.log.log(Level.WARNING, "no settings for game {0}", value);
                     }
                 }
+                clearParseCache();
             }
         }
+        forgetParsedValue(key);
 
         if (hasPropertyChangeListeners()) {
             String old = p.get(key);
             p.put(key, value);
+            modified();
             firePropertyChangeEvent(key, old, p.get(key));
         } else {
             p.put(key, value);
+            modified();
         }
     }
 
@@ -514,21 +742,95 @@ public class Settings implements Serializable, Iterable<String> {
         if (key.equals(Game.GAME_SETTING_KEY)) {
             if (getClass() == Settings.class) {
                 parent = null;
+                clearParseCache();
             }
         }
+        forgetParsedValue(key);
 
         if (hasPropertyChangeListeners()) {
             String old = p.get(key);
             p.remove(key);
+            modified();
             firePropertyChangeEvent(key, old, p.get(key));
         } else {
             p.remove(key);
+            modified();
         }
         if (p.isEmpty()) {
             p = null;
         }
     }
 
+    /**
+     * Caches the parsed form of values requested through the typed getters,
+     * such as {@link #getRegion(java.lang.String)}. Each entry stores the raw
+     * string that was parsed alongside the parsed value, and an entry is only
+     * used if the key's current value is the same string. Entries therefore
+     * never go stale, even if the value changes in a parent scope; entries are
+     * also discarded when a key is set or reset at this scope, or when the
+     * parent scope changes. Cached values are either immutable or copied
+     * before being returned.
+     */
+    private transient volatile ConcurrentHashMap<String, ParsedValue> parseCache;
+
+    private static final class ParsedValue {
+
+        final String raw;
+        final Object value;
+
+        ParsedValue(String raw, Object value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Returns the cached parsed value of a key, or {@code null} if the value
+     * is not cached, was parsed from a different raw value, or was parsed as a
+     * different type.
+     */
+    private Object getParsedValue(String key, String raw, Class<?> type) {
+        final ConcurrentHashMap<String, ParsedValue> cache = parseCache;
+        if (cache != null) {
+            final ParsedValue pv = cache.get(key);
+            if (pv != null && pv.value.getClass() == type && (pv.raw == raw || pv.raw.equals(raw))) {
+                return pv.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the parsed form of a key's raw value in the parse cache.
+     */
+    private void putParsedValue(String key, String raw, Object value) {
+        ConcurrentHashMap<String, ParsedValue> cache = parseCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = parseCache;
+                if (cache == null) {
+                    cache = new ConcurrentHashMap<>();
+                    parseCache = cache;
+                }
+            }
+        }
+        cache.put(key, new ParsedValue(raw, value));
+    }
+
+    private void forgetParsedValue(String key) {
+        final ConcurrentHashMap<String, ParsedValue> cache = parseCache;
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    private void clearParseCache() {
+        final ConcurrentHashMap<String, ParsedValue> cache = parseCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     /**
      * Sets multiple key, value pairs with a single method call.
      *
@@ -581,22 +883,12 @@ public class Settings implements Serializable, Iterable<String> {
             return;
         }
 
-        Properties loader = new Properties();
-        InputStream in = null;
-        try {
-            URL url = resources.ResourceKit.composeResourceURL(resource);
-            if (url == null) {
-                throw new FileNotFoundException(resource);
-            }
-            in = url.openStream();
-            loader.load(in);
-            for (String key : loader.stringPropertyNames()) {
-                set(key, loader.getProperty(key));
-            }
-        } finally {
-            if (in != null) {
-                in.close();
-            }
+        URL url = resources.ResourceKit.composeResourceURL(resource);
+        if (url == null) {
+            throw new FileNotFoundException(resource);
+        }
+        for (Entry<String, String> en : PropertyTableCache.load(url).entrySet()) {
+            set(en.getKey(), en.getValue());
         }
     }
 
@@ -995,7 +1287,22 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final Colour getColour(String key) {
         key = suffix(key, "-colour");
-        return argbToColour(colourImpl(key, get(key)));
+        return parseColour(key, get(key));
+    }
+
+    /**
+     * Returns a colour for a value, using the parse cache if possible.
+     */
+    private Colour parseColour(String key, String value) {
+        if (value == null) {
+            return argbToColour(colourImpl(key, value));
+        }
+        Colour c = (Colour) getParsedValue(key, value, Colour.class);
+        if (c == null) {
+            c = argbToColour(colourImpl(key, value));
+            putParsedValue(key, value, c);
+        }
+        return c;
     }
 
     /**
@@ -1012,9 +1319,10 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final Colour getColour(String key, Color defaultValue) {
         try {
-            final String v = get(suffix(key, "-colour"));
+            key = suffix(key, "-colour");
+            final String v = get(key);
             if (v != null) {
-                return argbToColour(colourImpl(key, v));
+                return parseColour(key, v);
             }
         } catch (ParseError e) {
         }
@@ -1039,9 +1347,10 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final Colour getColour(String key, int defaultValue) {
         try {
-            final String v = get(suffix(key, "-colour"));
+            key = suffix(key, "-colour");
+            final String v = get(key);
             if (v != null) {
-                return colour(v);
+                return parseColour(key, v);
             }
         } catch (ParseError e) {
         }
@@ -1303,7 +1612,22 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final float[] getTint(String key) {
         key = suffix(key, "-tint");
-        return tintImpl(key, get(key));
+        return parseTint(key, get(key));
+    }
+
+    /**
+     * Returns a tint for a value, using the parse cache if possible.
+     */
+    private float[] parseTint(String key, String value) {
+        if (value == null) {
+            return tintImpl(key, value);
+        }
+        float[] tint = (float[]) getParsedValue(key, value, float[].class);
+        if (tint == null) {
+            tint = tintImpl(key, value);
+            putParsedValue(key, value, tint);
+        }
+        return tint.clone();
     }
 
     /**
@@ -1324,7 +1648,7 @@ public class Settings implements Serializable, Iterable<String> {
         try {
             final String v = get(key);
             if (v != null) {
-                return tintImpl(key, v);
+                return parseTint(key, v);
             }
         } catch (ParseError e) {
         }
@@ -1457,13 +1781,18 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final Region getRegion(String key) {
         key = suffix(key, "-region");
-        String value = get(key);
-        if (value == null) {
+        final String raw = get(key);
+        if (raw == null) {
             return null;
         }
+        final Region cached = (Region) getParsedValue(key, raw, Region.class);
+        if (cached != null) {
+            return new Region(cached);
+        }
 
-        // check for a delta region
-        value = value.trim();
+        // check for a delta region; these are not cached since they depend
+        // on the value of the parent region
+        String value = raw.trim();
         if (value.length() >= 3 && value.charAt(0) == 'd' && value.charAt(1) == '(' && value.charAt(value.length() - 1) == ')') {
             int comma = value.indexOf(','); // first comma splits parent region from delta values
             if (comma < 0) {
@@ -1489,7 +1818,9 @@ public class Settings implements Serializable, Iterable<String> {
             return source;
         }
 
-        return regionImpl(key, value, null);
+        final Region r = regionImpl(key, value, null);
+        putParsedValue(key, raw, new Region(r));
+        return r;
     }
 
     /**
@@ -1509,7 +1840,12 @@ public class Settings implements Serializable, Iterable<String> {
         try {
             final String v = get(key);
             if (v != null) {
-                return regionImpl(key, v.trim(), null);
+                Region r = (Region) getParsedValue(key, v, Region.class);
+                if (r == null) {
+                    r = regionImpl(key, v.trim(), null);
+                    putParsedValue(key, v, r);
+                }
+                return new Region(r);
             }
         } catch (ParseError e) {
         }
@@ -1627,13 +1963,18 @@ public class Settings implements Serializable, Iterable<String> {
      */
     public final Region2D getRegion2D(String key) {
         key = suffix(key, "-region");
-        String value = get(key);
-        if (value == null) {
+        final String raw = get(key);
+        if (raw == null) {
             return null;
         }
+        final Region2D cached = (Region2D) getParsedValue(key, raw, Region2D.class);
+        if (cached != null) {
+            return new Region2D(cached);
+        }
 
-        // check for a delta region
-        value = value.trim();
+        // check for a delta region; these are not cached since they depend
+        // on the value of the parent region
+        String value = raw.trim();
         if (value.length() >= 3 && value.charAt(0) == 'd' && value.charAt(1) == '(' && value.charAt(value.length() - 1) == ')') {
             int comma = value.indexOf(','); // first comma splits parent region from delta values
             if (comma < 0) {
@@ -1656,7 +1997,9 @@ public class Settings implements Serializable, Iterable<String> {
             return source;
         }
 
-        return region2DImpl(key, value, null);
+        final Region2D r = region2DImpl(key, value, null);
+        putParsedValue(key, raw, new Region2D(r));
+        return r;
     }
 
     /**
@@ -1677,7 +2020,12 @@ public class Settings implements Serializable, Iterable<String> {
         try {
             final String v = get(key);
             if (v != null) {
-                return region2DImpl(key, v.trim(), null);
+                Region2D r = (Region2D) getParsedValue(key, v, Region2D.class);
+                if (r == null) {
+                    r = region2DImpl(key, v.trim(), null);
+                    putParsedValue(key, v, r);
+                }
+                return new Region2D(r);
             }
         } catch (ParseError e) {
         }
@@ -1786,12 +2134,24 @@ public class Settings implements Serializable, Iterable<String> {
     public final float getPointSize(String key) {
         key = suffix(key, "-pointsize");
         try {
-            return getFloat(key);
+            return parsePointSize(key, get(key));
         } catch (Exception e) {
             throw new ParseError("rk-err-pointsize", key, get(key), null);
         }
     }
 
+    /**
+     * Returns a point size for a value, using the parse cache if possible.
+     */
+    private float parsePointSize(String key, String value) {
+        Float size = (Float) getParsedValue(key, value, Float.class);
+        if (size == null) {
+            size = (float) doubleImpl(key, value);
+            putParsedValue(key, value, size);
+        }
+        return size;
+    }
+
     /**
      * Returns a font point size from the specified key;
      * <i>the key name will have {@code -pointsize} appended if necessary.
@@ -1809,7 +2169,7 @@ public class Settings implements Serializable, Iterable<String> {
             key = suffix(key, "-pointsize");
             String v = get(key);
             if (v != null) {
-                return getFloat(key);
+                return parsePointSize(key, v);
             }
         } catch (Exception e) {
         }
@@ -1839,7 +2199,7 @@ public class Settings implements Serializable, Iterable<String> {
             key = suffix(key, "-pointsize");
             String v = get(key);
             if (v != null) {
-                float ps = Float.parseFloat(v.trim());
+                float ps = parsePointSize(key, v);
                 if (sourceFont.getSize2D() != ps) {
                     return sourceFont.deriveFont(ps);
                 }
@@ -1990,7 +2350,20 @@ public class Settings implements Serializable, Iterable<String> {
         try {
             key = suffix(key, "-style");
             value = get(key);
-            return textStyleImpl(key, value, base);
+            // styles with script literals are evaluated on every request
+            if (value == null || value.indexOf('{') >= 0) {
+                return textStyleImpl(key, value, base);
+            }
+            TextStyle style = (TextStyle) getParsedValue(key, value, TextStyle.class);
+            if (style == null) {
+                style = textStyleImpl(key, value, null);
+                putParsedValue(key, value, style);
+            }
+            if (base == null) {
+                base = new TextStyle();
+            }
+            base.add(style);
+            return base;
         } catch (ParseError pe) {
             throw pe;
         } catch (Exception e) {
@@ -2049,6 +2422,11 @@ public class Settings implements Serializable, Iterable<String> {
      * take values not supported by the parser, such as
      * {@link TransformAttribute}:<br>
      * {@code family: {ResourceKit.bodyFamily}; size: 10; foreground: #ff0000;}<br>
+     * If the expression starts with an equals sign, it is treated as a
+     * constant: it is evaluated once, and the result is reused whenever the
+     * same expression appears again. Only use this form for expressions that
+     * have no side effects and always produce the same value:<br>
+     * {@code transform: {=new TransformAttribute(AffineTransform.getScaleInstance(1.2, 1))}}<br>
      *
      * @param value the style specification to parse; see above for format
      * @param base a baseline style to modify, or {@code null} to create a new
@@ -2102,19 +2480,7 @@ public class Settings implements Serializable, Iterable<String> {
                     case '{':
                         isLiteral = true;
                         valueText = valueText.substring(1, valueText.length() - (end == '}' ? 1 : 0));
-                        ScriptMonkey evaluator = tlStyleEvaluator.get();
-                        if (evaluator == null) {
-                            evaluator = new ScriptMonkey("style setting literal");
-                            evaluator.eval(
-                                "importPackage(gamedata);"
-                                + "importPackage(resources);"
-                                + "importClass(java.awt.font.TextAttribute);"
-                                + "importClass(java.awt.font.TransformAttribute);"
-                                + "importClass(java.awt.geom.AffineTransform);"
-                            );
-                            tlStyleEvaluator.set(evaluator);
-                        }
-                        value = evaluator.eval(valueText);
+                        value = evaluateStyleLiteral(valueText);
                         break;
                     case '\'':
                     case '"':
@@ -2150,8 +2516,82 @@ public class Settings implements Serializable, Iterable<String> {
         }
         return styleDesc.length();
     }
-    private static ThreadLocal<ScriptMonkey> tlStyleEvaluator = new ThreadLocal<>();
-    
+
+    /**
+     * Evaluates the script code of a style value literal. If the code starts
+     * with '=', the rest of the expression is assumed to be free of side
+     * effects and to always produce the same value, so the result is
+     * memoized and shared by all threads.
+     */
+    private static Object evaluateStyleLiteral(String code) {
+        if (code.startsWith("=")) {
+            Object value = pureStyleLiterals.get(code);
+            if (value == null) {
+                value = StyleEvaluator.get().eval(code.substring(1));
+                if (value != null) {
+                    if (pureStyleLiterals.size() >= MAX_PURE_STYLE_LITERALS) {
+                        pureStyleLiterals.clear();
+                    }
+                    pureStyleLiterals.put(code, value);
+                }
+            }
+            return value;
+        }
+        return StyleEvaluator.get().eval(code);
+    }
+    private static final ConcurrentHashMap<String, Object> pureStyleLiterals = new ConcurrentHashMap<>();
+    private static final int MAX_PURE_STYLE_LITERALS = 256;
+
+    /**
+     * Evaluates style literals for a single thread. Each literal is compiled
+     * once and the compiled form is cached, so that a style that is used on
+     * every repaint does not need to be parsed every time.
+     */
+    private static final class StyleEvaluator {
+
+        private static final int MAX_SCRIPTS = 64;
+        private static final ThreadLocal<StyleEvaluator> tlStyleEvaluator = ThreadLocal.withInitial(StyleEvaluator::new);
+
+        private final ScriptMonkey monkey;
+        private final LinkedHashMap<String, CompiledScript> scripts = new LinkedHashMap<String, CompiledScript>(MAX_SCRIPTS, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, CompiledScript> eldest) {
+                return size() > MAX_SCRIPTS;
+            }
+        };
+
+        private StyleEvaluator() {
+            monkey = new ScriptMonkey("style setting literal");
+            monkey.eval(
+                    "importPackage(gamedata);"
+                    + "importPackage(resources);"
+                    + "importClass(java.awt.font.TextAttribute);"
+                    + "importClass(java.awt.font.TransformAttribute);"
+                    + "importClass(java.awt.geom.AffineTransform);"
+            );
+        }
+
+        static StyleEvaluator get() {
+            return tlStyleEvaluator.get();
+        }
+
+        Object eval(String code) {
+            CompiledScript script = scripts.get(code);
+            if (script == null) {
+                try {
+                    script = monkey.compile(code);
+                } catch (ScriptException ex) {
+                    // evaluate the source to report the error as usual
+                    return monkey.eval(code);
+                }
+                scripts.put(code, script);
+            }
+            return monkey.eval(script);
+        }
+    }
+
 
     @SuppressWarnings("empty-statement")
     private static int findValueEnd(String styleDesc, int start) {
@@ -2212,45 +2652,53 @@ public class Settings implements Serializable, Iterable<String> {
     private static final Pattern COLOUR_MATCHER = Pattern.compile("\\#|((rgba?)\\()|(hsba?\\()", Pattern.CASE_INSENSITIVE);
 
     private static Object styleLookup(String base, String name) {
-        if (STYLE_MAP.containsKey(name)) {
-            return STYLE_MAP.get(name);
+        Object value = STYLE_MAP.get(name);
+        if (value != null) {
+            return value;
         }
         if (base != null) {
             base = base + '_' + name;
-            if (STYLE_MAP.containsKey(base)) {
-                return STYLE_MAP.get(base);
+            value = STYLE_MAP.get(base);
+            if (value != null) {
+                return value;
             }
         }
         throw new IllegalArgumentException("unknown token: " + base);
     }
 
-    private static final HashMap<String, Object> STYLE_MAP = new HashMap<>(100);
+    /**
+     * Maps style token names to values. This is filled in during class
+     * initialization and is read-only thereafter, so it can be shared safely
+     * between threads.
+     */
+    private static final Map<String, Object> STYLE_MAP;
 
     static {
+        final HashMap<String, Object> styleMap = new HashMap<>(100);
         try {
             for (Field f : TextAttribute.class.getFields()) {
                 if (!Modifier.isStatic(f.getModifiers())) {
                     continue;
                 }
-                STYLE_MAP.put(f.getName(), f.get(null));
+                styleMap.put(f.getName(), f.get(null));
             }
         } catch (Throwable t) {
             StrangeEons.log.log(Level.SEVERE, "unable to init text style map", t);
         }
-        STYLE_MAP.put("JUSTIFICATION_OFF", 0f);
-        STYLE_MAP.put("KERNING_OFF", 0);
-        STYLE_MAP.put("LIGATURES_OFF", 0);
-        STYLE_MAP.put("POSTURE_ITALIC", TextAttribute.POSTURE_OBLIQUE);
-        STYLE_MAP.put("STRIKETHROUGH_OFF", false);
-        STYLE_MAP.put("SWAP_COLORS_OFF", false);
-        STYLE_MAP.put("SWAP_COLOURS", TextAttribute.SWAP_COLORS);
-        STYLE_MAP.put("SWAP_COLOURS_ON", true);
-        STYLE_MAP.put("SWAP_COLOURS_OFF", false);
-        STYLE_MAP.put("TRACKING_DEFAULT", 0f);
-        STYLE_MAP.put("UNDERLINE_OFF", -1);
-        STYLE_MAP.put("WIDTH_SEMICONDENSED", TextAttribute.WIDTH_SEMI_CONDENSED);
-        STYLE_MAP.put("WIDTH_SEMIEXTENDED", TextAttribute.WIDTH_SEMI_EXTENDED);
-//		STYLE_MAP.put( "",  );
+        styleMap.put("JUSTIFICATION_OFF", 0f);
+        styleMap.put("KERNING_OFF", 0);
+        styleMap.put("LIGATURES_OFF", 0);
+        styleMap.put("POSTURE_ITALIC", TextAttribute.POSTURE_OBLIQUE);
+        styleMap.put("STRIKETHROUGH_OFF", false);
+        styleMap.put("SWAP_COLORS_OFF", false);
+        styleMap.put("SWAP_COLOURS", TextAttribute.SWAP_COLORS);
+        styleMap.put("SWAP_COLOURS_ON", true);
+        styleMap.put("SWAP_COLOURS_OFF", false);
+        styleMap.put("TRACKING_DEFAULT", 0f);
+        styleMap.put("UNDERLINE_OFF", -1);
+        styleMap.put("WIDTH_SEMICONDENSED", TextAttribute.WIDTH_SEMI_CONDENSED);
+        styleMap.put("WIDTH_SEMIEXTENDED", TextAttribute.WIDTH_SEMI_EXTENDED);
+        STYLE_MAP = Collections.unmodifiableMap(styleMap);
     }
 
     /**
@@ -2742,7 +3190,8 @@ public class Settings implements Serializable, Iterable<String> {
 
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.writeInt(CURRENT_VERSION);
-        out.writeObject(p);
+        // written as a HashMap for compatibility
+        out.writeObject(p == null ? null : p.toHashMap());
         if (parent != null && parent.isSerializedParent()) {
             out.writeObject(parent);
         } else {
@@ -2767,7 +3216,8 @@ public class Settings implements Serializable, Iterable<String> {
                 }
             }
         } else {
-            p = (HashMap<String, String>) in.readObject();
+            HashMap<String, String> map = (HashMap<String, String>) in.readObject();
+            p = map == null || map.isEmpty() ? null : CompactStringMap.from(map);
         }
         if (version >= 3) {
             parent = (Settings) in.readObject();
@@ -3493,9 +3943,31 @@ public class Settings implements Serializable, Iterable<String> {
 
         @Override
         public String get(String key) {
+            if (key == null) {
+                throw new NullPointerException("key");
+            }
+            final LookupCache cache = super.lookupCache;
+            if (cache != null) {
+                return cache.get(this, key);
+            }
+            return getUncached(key);
+        }
+
+        @Override
+        String getUncached(String key) {
             return getParent().get(space + key);
         }
 
+        @Override
+        long getLookupStamp() {
+            return getParent().getLookupStamp();
+        }
+
+        @Override
+        int getLookupDepth() {
+            return getParent().getLookupDepth();
+        }
+
         @Override
         public Set<String> getKeySet() {
             HashSet<String> plucked = new HashSet<>();